@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+#
+# Plan cloning benchmark: clones one template plan for N users, once through N calls to POST /{id}/clone and
+# once through a single POST /{id}/clone-many.
+#
+# To compare against the per-entity copy, run the single-clone pass on the commit before set-based cloning
+# was introduced and again on this one:
+#
+#   ./scripts/clone-benchmark.sh -p 1 -n 200
+#
+set -euo pipefail
+
+BASE_URL="${BASE_URL:-http://localhost:8080/api/api/holidays}"
+PLAN_ID=1
+USERS=100
+EMAIL_DOMAIN="clone-bench.example.com"
+
+while getopts "p:n:u:" opt; do
+    case "$opt" in
+        p) PLAN_ID="$OPTARG" ;;
+        n) USERS="$OPTARG" ;;
+        u) BASE_URL="$OPTARG" ;;
+        *) echo "usage: $0 [-p templatePlanId] [-n users] [-u baseUrl]" >&2; exit 1 ;;
+    esac
+done
+
+RUN_ID="$(date +%s)"
+echo "Target: $BASE_URL  template plan: $PLAN_ID  users: $USERS"
+
+# Pass 1: one request, one plan and one activity copy per user
+START=$(date +%s.%N)
+FAILED=0
+for ((i = 0; i < USERS; i++)); do
+    CODE=$(curl -s -o /dev/null -X POST -w "%{http_code}" \
+        "$BASE_URL/$PLAN_ID/clone?userEmail=single-$RUN_ID-$i@$EMAIL_DOMAIN")
+    [[ "$CODE" == 201 ]] || FAILED=$((FAILED + 1))
+done
+END=$(date +%s.%N)
+awk -v start="$START" -v end="$END" -v n="$USERS" -v failed="$FAILED" 'BEGIN {
+    printf "single clones:  %d plans  failed: %d  elapsed: %.2fs  %.2f plans/s\n", n, failed, end - start, n / (end - start) }'
+
+# Pass 2: every user in one request
+EMAILS=$(for ((i = 0; i < USERS; i++)); do printf '"bulk-%s-%d@%s"\n' "$RUN_ID" "$i" "$EMAIL_DOMAIN"; done | paste -sd, -)
+START=$(date +%s.%N)
+CODE=$(curl -s -o /dev/null -X POST -H "Content-Type: application/json" -w "%{http_code}" \
+    -d "{\"userEmails\": [$EMAILS]}" "$BASE_URL/$PLAN_ID/clone-many")
+END=$(date +%s.%N)
+awk -v start="$START" -v end="$END" -v n="$USERS" -v code="$CODE" 'BEGIN {
+    printf "bulk clone:     %d plans  status: %s  elapsed: %.2fs  %.2f plans/s\n", n, code, end - start, n / (end - start) }'
@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+#
+# Concurrent-optimization load test for the job-based optimization path: POST /api/api/holidays/{id}/optimize
+# answers 202 with a job id, and the request is complete once the job's SSE stream
+# (/optimization/jobs/{jobId}/events) delivers its "result" event.
+#
+# Run it once against a platform-thread build and once against a virtual-thread build and compare the
+# reported throughput:
+#
+#   ./mvnw spring-boot:run                                             # Java 17, platform threads
+#   VIRTUAL_THREADS_ENABLED=true ./mvnw -Pjava21 spring-boot:run       # Java 21, virtual threads
+#
+#   ./scripts/optimize-load-test.sh -c 200 -n 1000 -p 1,2,3,4,5
+#
+# Only one job is active per plan, so concurrent submits for the same plan share a job; the report counts the
+# distinct jobs next to the requests.
+#
+set -euo pipefail
+
+BASE_URL="${BASE_URL:-http://localhost:8080/api/api/holidays}"
+CONCURRENCY=50
+REQUESTS=500
+PLAN_IDS="1"
+MAX_WAIT=300
+
+while getopts "c:n:p:u:t:" opt; do
+    case "$opt" in
+        c) CONCURRENCY="$OPTARG" ;;
+        n) REQUESTS="$OPTARG" ;;
+        p) PLAN_IDS="$OPTARG" ;;
+        u) BASE_URL="$OPTARG" ;;
+        t) MAX_WAIT="$OPTARG" ;;
+        *) echo "usage: $0 [-c concurrency] [-n requests] [-p planId,planId,...] [-u baseUrl] [-t maxWaitSeconds]" >&2; exit 1 ;;
+    esac
+done
+
+IFS=',' read -r -a PLANS <<< "$PLAN_IDS"
+RESULTS="$(mktemp)"
+trap 'rm -f "$RESULTS"' EXIT
+
+# Submits one optimization and follows its event stream; prints
+# "<submit status> <submit seconds> <completion seconds> <job id> <final job status>"
+run_one() {
+    local plan_id="$1" start response submit_code submit_time job_id final_status end
+    start=$(date +%s.%N)
+    response=$(curl -s -X POST -w "\n%{http_code} %{time_total}" "$BASE_URL/$plan_id/optimize" || true)
+    read -r submit_code submit_time <<< "$(tail -n 1 <<< "$response")"
+    job_id=$(grep -o '"jobId":[0-9]*' <<< "$response" | head -n 1 | cut -d: -f2 || true)
+    if [[ "$submit_code" != 202 || -z "$job_id" ]]; then
+        echo "${submit_code:-000} ${submit_time:-0} 0 - NOT_SUBMITTED"
+        return
+    fi
+    # The server completes the stream right after the "result" event
+    final_status=$(curl -sN --max-time "$MAX_WAIT" -H "Accept: text/event-stream" \
+        "$BASE_URL/optimization/jobs/$job_id/events" 2>/dev/null \
+        | awk '/^event: *result/ { result = 1; next } result && /^data:/ { print; exit }' \
+        | grep -o '"status":"[A-Z]*"' | head -n 1 | cut -d'"' -f4 || true)
+    end=$(date +%s.%N)
+    awk -v code="$submit_code" -v submit="$submit_time" -v start="$start" -v end="$end" -v job="$job_id" \
+        -v status="${final_status:-TIMED_OUT}" 'BEGIN { printf "%s %s %.3f %s %s\n", code, submit, end - start, job, status }'
+}
+export -f run_one
+export BASE_URL MAX_WAIT
+
+echo "Target: $BASE_URL  requests: $REQUESTS  concurrency: $CONCURRENCY  plans: $PLAN_IDS"
+
+START=$(date +%s.%N)
+for ((i = 0; i < REQUESTS; i++)); do
+    echo "${PLANS[$((i % ${#PLANS[@]}))]}"
+done | xargs -P "$CONCURRENCY" -I{} bash -c 'run_one "$1"' _ {} >> "$RESULTS"
+END=$(date +%s.%N)
+
+sort -k3,3n "$RESULTS" | awk -v start="$START" -v end="$END" '
+    {
+        total++; latencies[total] = $3; sum += $3; submitSum += $2
+        if ($1 == 202) accepted++
+        if ($5 == "COMPLETED") completed++
+        if ($4 != "-") jobs[$4] = 1
+    }
+    END {
+        elapsed = end - start
+        for (job in jobs) jobCount++
+        printf "requests: %d  accepted: %d  completed: %d  failed: %d  distinct jobs: %d\n",
+            total, accepted, completed, total - completed, jobCount
+        printf "elapsed: %.2fs  throughput: %.2f completed/s\n", elapsed, completed / elapsed
+        printf "submit latency avg: %.3fs\n", submitSum / total
+        printf "completion latency avg: %.3fs  p50: %.3fs  p95: %.3fs  p99: %.3fs\n", sum / total,
+            latencies[rank(0.50)], latencies[rank(0.95)], latencies[rank(0.99)]
+    }
+    # Nearest-rank percentile index into the sorted latencies
+    function rank(p,    r) { r = int(total * p); if (r < total * p) r++; return r < 1 ? 1 : r }'
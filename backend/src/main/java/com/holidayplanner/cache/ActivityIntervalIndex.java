@@ -0,0 +1,150 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.cache.ActivityIntervalTree.Interval;
+import com.holidayplanner.dto.ActivitySummary;
+import com.holidayplanner.model.Activity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-plan, per-day interval trees over activity times, so overlap checks on the add and update paths run in
+ * memory instead of as a database query. Trees are loaded from the plan's activity summaries on first use and
+ * kept current by applying single-activity changes once their transaction commits; bulk changes drop the plan.
+ * <p>
+ * Trees expire after {@code holiday-plans.interval-index.ttl-minutes}, which bounds how long an activity added
+ * through another instance can go unnoticed, and a conflict found in a cached tree is confirmed against a fresh load
+ * before it is reported. The check is advisory: two concurrent requests can each pass it before either commits.
+ */
+@Component
+@Slf4j
+public class ActivityIntervalIndex {
+    
+    private final PlanScopedCache<PlanIntervals> cache;
+    
+    private final AtomicLong conflictChecks = new AtomicLong();
+    private final AtomicLong conflictsFound = new AtomicLong();
+    private final AtomicLong conflictRechecks = new AtomicLong();
+    
+    public ActivityIntervalIndex(@Value("${holiday-plans.interval-index.max-entries:10000}") int maxEntries,
+                                 @Value("${holiday-plans.interval-index.ttl-minutes:2}") long ttlMinutes) {
+        this.cache = new PlanScopedCache<>(maxEntries, Duration.ofMinutes(ttlMinutes));
+    }
+    
+    /**
+     * Activities of the plan on {@code date} whose times overlap [startTime, endTime), leaving out
+     * {@code excludedActivityId}. Returns an empty list when the span has no start and end time. The plan's
+     * activities are loaded through {@code loader} on a miss.
+     */
+    public List<Interval> findConflicts(Long planId, LocalDate date, LocalTime startTime, LocalTime endTime,
+                                        Long excludedActivityId, Supplier<List<ActivitySummary>> loader) {
+        if (date == null || Interval.of(excludedActivityId, null, startTime, endTime) == null) {
+            return List.of();
+        }
+        conflictChecks.incrementAndGet();
+        
+        AtomicBoolean loaded = new AtomicBoolean();
+        Supplier<PlanIntervals> load = () -> {
+            loaded.set(true);
+            return PlanIntervals.from(loader.get());
+        };
+        Function<PlanIntervals, List<Interval>> check =
+                intervals -> intervals.findOverlapping(date, startTime, endTime, excludedActivityId);
+        
+        List<Interval> conflicts = cache.read(planId, load, check);
+        if (!conflicts.isEmpty() && !loaded.get()) {
+            // The cached trees may predate a move or delete made through another instance; only reject on what
+            // the database holds now. Conflicts are rare, so the reload is too.
+            conflictRechecks.incrementAndGet();
+            cache.evict(planId);
+            conflicts = cache.read(planId, load, check);
+        }
+        if (!conflicts.isEmpty()) {
+            conflictsFound.incrementAndGet();
+        }
+        return conflicts;
+    }
+    
+    public void activityAdded(Long planId, Placement added) {
+        cache.update(planId, intervals -> intervals.add(added));
+    }
+    
+    public void activityRemoved(Long planId, Placement removed) {
+        cache.update(planId, intervals -> intervals.remove(removed));
+    }
+    
+    public void activityChanged(Long planId, Placement before, Placement after) {
+        cache.update(planId, intervals -> {
+            intervals.remove(before);
+            intervals.add(after);
+        });
+    }
+    
+    // For plan deletes and bulk rescheduling that are cheaper to reload than to replay
+    public void invalidate(Long planId) {
+        cache.invalidate(planId);
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = cache.getStatistics();
+        stats.put("conflictChecks", conflictChecks.get());
+        stats.put("conflictsFound", conflictsFound.get());
+        stats.put("conflictRechecks", conflictRechecks.get());
+        return stats;
+    }
+    
+    /**
+     * Where one activity sits in the index, captured before and after a change. The interval is {@code null} for
+     * activities without a usable start and end time.
+     */
+    public record Placement(LocalDate date, Interval interval) {
+        
+        public static Placement of(Activity activity) {
+            return new Placement(activity.getDate(), Interval.of(activity));
+        }
+    }
+    
+    // Mutated and read only while holding the cache lock
+    private static final class PlanIntervals {
+        
+        private final Map<LocalDate, ActivityIntervalTree> days = new HashMap<>();
+        
+        static PlanIntervals from(List<ActivitySummary> activities) {
+            PlanIntervals intervals = new PlanIntervals();
+            for (ActivitySummary activity : activities) {
+                intervals.add(new Placement(activity.date(), Interval.of(activity)));
+            }
+            return intervals;
+        }
+        
+        void add(Placement placement) {
+            if (placement.date() != null && placement.interval() != null) {
+                days.computeIfAbsent(placement.date(), date -> new ActivityIntervalTree()).insert(placement.interval());
+            }
+        }
+        
+        void remove(Placement placement) {
+            if (placement.date() == null || placement.interval() == null) {
+                return;
+            }
+            ActivityIntervalTree tree = days.get(placement.date());
+            if (tree != null && tree.remove(placement.interval()) && tree.isEmpty()) {
+                days.remove(placement.date());
+            }
+        }
+        
+        List<Interval> findOverlapping(LocalDate date, LocalTime startTime, LocalTime endTime, Long excludedActivityId) {
+            ActivityIntervalTree tree = days.get(date);
+            return tree != null ? tree.findOverlapping(startTime, endTime, excludedActivityId) : List.of();
+        }
+    }
+}
\ No newline at end of file
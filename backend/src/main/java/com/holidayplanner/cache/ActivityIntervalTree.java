@@ -0,0 +1,243 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.dto.ActivitySummary;
+import com.holidayplanner.model.Activity;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Interval tree over the timed activities of one day: an AVL tree ordered by start time in which every node also
+ * carries the latest end time of its subtree. An overlap query skips every subtree that ends before the queried
+ * start, so it visits O(log n + k) nodes for k overlaps. Not thread-safe.
+ */
+public class ActivityIntervalTree {
+    
+    private static final Comparator<Interval> ORDER = Comparator.comparing(Interval::startTime)
+            .thenComparing(Interval::activityId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    
+    private Node root;
+    private int size;
+    
+    public void insert(Interval interval) {
+        root = insert(root, interval);
+    }
+    
+    public boolean remove(Interval interval) {
+        int sizeBefore = size;
+        root = remove(root, interval);
+        return size < sizeBefore;
+    }
+    
+    /**
+     * Intervals overlapping [start, end), ordered by start time. Back-to-back activities do not overlap.
+     */
+    public List<Interval> findOverlapping(LocalTime start, LocalTime end, Long excludedActivityId) {
+        List<Interval> overlapping = new ArrayList<>();
+        collectOverlapping(root, start, end, excludedActivityId, overlapping);
+        return overlapping;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    // For tests
+    int height() {
+        return height(root);
+    }
+    
+    // For tests: throws if the ordering, an AVL height or balance, or a subtree's maxEnd is off anywhere in the tree
+    void checkInvariants() {
+        if (checkInvariants(root, null, null) != size) {
+            throw new IllegalStateException("size " + size + " does not match the node count");
+        }
+    }
+    
+    private Node insert(Node node, Interval interval) {
+        if (node == null) {
+            size++;
+            return new Node(interval);
+        }
+        int cmp = ORDER.compare(interval, node.interval);
+        if (cmp < 0) {
+            node.left = insert(node.left, interval);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, interval);
+        } else {
+            node.interval = interval;
+        }
+        return rebalance(node);
+    }
+    
+    private Node remove(Node node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(interval, node.interval);
+        if (cmp < 0) {
+            node.left = remove(node.left, interval);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, interval);
+        } else {
+            size--;
+            if (node.left == null || node.right == null) {
+                return node.left != null ? node.left : node.right;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.interval = successor.interval;
+            node.right = removeMin(node.right);
+        }
+        return rebalance(node);
+    }
+    
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+    
+    private void collectOverlapping(Node node, LocalTime start, LocalTime end, Long excludedActivityId, List<Interval> result) {
+        // Nothing in this subtree ends after the queried start
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collectOverlapping(node.left, start, end, excludedActivityId, result);
+        // Everything to the right starts at or after this node, so once this node starts at the queried end, stop
+        if (!node.interval.startTime().isBefore(end)) {
+            return;
+        }
+        if (node.interval.endTime().isAfter(start) && !Objects.equals(node.interval.activityId(), excludedActivityId)) {
+            result.add(node.interval);
+        }
+        collectOverlapping(node.right, start, end, excludedActivityId, result);
+    }
+    
+    private static int checkInvariants(Node node, Interval lowerBound, Interval upperBound) {
+        if (node == null) {
+            return 0;
+        }
+        if ((lowerBound != null && ORDER.compare(node.interval, lowerBound) <= 0)
+                || (upperBound != null && ORDER.compare(node.interval, upperBound) >= 0)) {
+            throw new IllegalStateException("out of order: " + node.interval);
+        }
+        int count = 1 + checkInvariants(node.left, lowerBound, node.interval)
+                + checkInvariants(node.right, node.interval, upperBound);
+        if (node.height != 1 + Math.max(height(node.left), height(node.right))) {
+            throw new IllegalStateException("wrong height at " + node.interval);
+        }
+        if (Math.abs(height(node.left) - height(node.right)) > 1) {
+            throw new IllegalStateException("unbalanced at " + node.interval);
+        }
+        LocalTime maxEnd = node.interval.endTime();
+        for (Node child : new Node[]{node.left, node.right}) {
+            if (child != null && child.maxEnd.isAfter(maxEnd)) {
+                maxEnd = child.maxEnd;
+            }
+        }
+        if (!node.maxEnd.equals(maxEnd)) {
+            throw new IllegalStateException("wrong maxEnd at " + node.interval);
+        }
+        return count;
+    }
+    
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+    
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+    
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+    
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalTime maxEnd = node.interval.endTime();
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+    
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+    
+    /**
+     * The time span of one activity. Activities without a start and end time, or with an end not after the start,
+     * have no interval and never conflict.
+     */
+    public record Interval(Long activityId, String name, LocalTime startTime, LocalTime endTime) {
+        
+        public static Interval of(Activity activity) {
+            return of(activity.getId(), activity.getName(), activity.getStartTime(), activity.getEndTime());
+        }
+        
+        public static Interval of(ActivitySummary activity) {
+            return of(activity.id(), activity.name(), activity.startTime(), activity.endTime());
+        }
+        
+        public static Interval of(Long activityId, String name, LocalTime startTime, LocalTime endTime) {
+            if (startTime == null || endTime == null || !startTime.isBefore(endTime)) {
+                return null;
+            }
+            return new Interval(activityId, name, startTime, endTime);
+        }
+    }
+    
+    private static final class Node {
+        
+        private Interval interval;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private LocalTime maxEnd;
+        
+        private Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.endTime();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.model.WeatherData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of persisted forecasts sitting in front of {@code WeatherDataRepository}.
+ * Rows are bucketed per (city, country, date) and looked up by forecast hour within the bucket,
+ * so both point reads and date-range reads are served without a database round trip.
+ * <p>
+ * City and country are matched case-insensitively, like in-flight forecast fetches are coalesced. Rows are copied
+ * on the way in and out, so callers never share a cached entity. Every invalidation bumps a version; a put carries
+ * the version read before its rows were loaded and is dropped if an invalidation happened in between, so rows
+ * loaded before a write cannot be cached after that write invalidated them.
+ */
+@Component
+@Slf4j
+public class ForecastCache {
+    
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Map<DayKey, DayEntry> entries;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong stalePuts = new AtomicLong();
+    
+    private long version; // guarded by entries
+    
+    public ForecastCache(@Value("${weather.cache.ttl-minutes:60}") long ttlMinutes,
+                         @Value("${weather.cache.max-entries:2000}") int maxEntries) {
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DayKey, DayEntry> eldest) {
+                if (size() > ForecastCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Returns the cached rows for the given day, or {@code null} when the day is not cached or has expired.
+     * An empty list is a valid cached answer meaning "the database has no rows for this day".
+     */
+    public List<WeatherData> getDay(String city, String country, LocalDate date) {
+        DayEntry entry = count(lookup(DayKey.of(city, country, date)));
+        return entry != null ? entry.rows.stream().map(ForecastCache::copyOf).toList() : null;
+    }
+    
+    /**
+     * Returns the precomputed hourly comfort grid for the given day, or {@code null} when the day is not cached.
+     * Not counted as a hit or miss: the grid is read next to the day's forecast, whose lookup already counted.
+     */
+    public HourlyComfortGrid getComfortGrid(String city, String country, LocalDate date) {
+        DayEntry entry = lookup(DayKey.of(city, country, date));
+        return entry != null ? entry.comfortGrid : null;
+    }
+    
+    public Optional<WeatherData> get(String city, String country, LocalDate date, Integer forecastHour) {
+        DayEntry entry = count(lookup(DayKey.of(city, country, date)));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return entry.rows.stream()
+                .filter(row -> Objects.equals(row.getForecastHour(), forecastHour))
+                .findFirst()
+                .map(ForecastCache::copyOf);
+    }
+    
+    /**
+     * Returns all rows for the inclusive date range in (date, hour) order, or {@code null} if any day of the
+     * range is missing from the cache. The range counts as one hit or one miss.
+     */
+    public List<WeatherData> getRange(String city, String country, LocalDate startDate, LocalDate endDate) {
+        List<DayEntry> days = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            DayEntry entry = lookup(DayKey.of(city, country, date));
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            days.add(entry);
+        }
+        hits.incrementAndGet();
+        
+        List<WeatherData> result = new ArrayList<>();
+        for (DayEntry day : days) {
+            day.rows.forEach(row -> result.add(copyOf(row)));
+        }
+        return result;
+    }
+    
+    /**
+     * The version to pass to {@link #putRange}; read it before loading the rows from the database.
+     */
+    public long currentVersion() {
+        synchronized (entries) {
+            return version;
+        }
+    }
+    
+    /**
+     * Caches every day of the inclusive range from rows loaded by a single range query, together with its
+     * hourly comfort grid. Days without rows are cached as empty so later range reads do not go back to the
+     * database for them. Nothing is cached if anything was invalidated since {@code loadedAtVersion}.
+     */
+    public void putRange(String city, String country, LocalDate startDate, LocalDate endDate, List<WeatherData> rows,
+                         long loadedAtVersion) {
+        Map<LocalDate, List<WeatherData>> rowsByDate = new HashMap<>();
+        for (WeatherData row : rows) {
+            rowsByDate.computeIfAbsent(row.getDate(), date -> new ArrayList<>()).add(copyOf(row));
+        }
+        
+        long expiresAt = System.nanoTime() + ttl.toNanos();
+        synchronized (entries) {
+            if (version != loadedAtVersion) {
+                stalePuts.incrementAndGet();
+                return;
+            }
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                List<WeatherData> dayRows = rowsByDate.getOrDefault(date, List.of());
+                entries.put(DayKey.of(city, country, date),
+                        new DayEntry(List.copyOf(dayRows), HourlyComfortGrid.from(dayRows), expiresAt));
+            }
+        }
+    }
+    
+    public void invalidate(String city, String country, LocalDate date) {
+        synchronized (entries) {
+            version++;
+            if (entries.remove(DayKey.of(city, country, date)) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Drops every cached day before the cutoff, used when retention removes those days from the database.
+     */
+    public void invalidateBefore(LocalDate cutoff) {
+        synchronized (entries) {
+            version++;
+            int before = entries.size();
+            entries.keySet().removeIf(key -> key.date().isBefore(cutoff));
+            invalidations.addAndGet(before - entries.size());
+        }
+    }
+    
+    public void clear() {
+        synchronized (entries) {
+            version++;
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttl.toMinutes());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("stalePutsDropped", stalePuts.get());
+        return stats;
+    }
+    
+    // Hits and misses are counted by the public reads, once per call, not per entry looked up
+    private DayEntry lookup(DayKey key) {
+        synchronized (entries) {
+            DayEntry entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry;
+        }
+    }
+    
+    private DayEntry count(DayEntry entry) {
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry;
+    }
+    
+    private static WeatherData copyOf(WeatherData row) {
+        WeatherData copy = new WeatherData();
+        BeanUtils.copyProperties(row, copy);
+        return copy;
+    }
+    
+    private record DayKey(String city, String country, LocalDate date) {
+        
+        static DayKey of(String city, String country, LocalDate date) {
+            return new DayKey(city.toLowerCase(Locale.ROOT), country.toLowerCase(Locale.ROOT), date);
+        }
+    }
+    
+    private record DayEntry(List<WeatherData> rows, HourlyComfortGrid comfortGrid, long expiresAtNanos) {
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.model.WeatherData;
+
+import java.util.List;
+
+/**
+ * Immutable per-day grid of hourly outdoor and indoor activity scores with prefix sums, so the average score of
+ * any [startHour, endHour) slot is an O(1) lookup on primitive arrays. Hours without a forecast are skipped when
+ * averaging, matching the behaviour of averaging over the hours that have data.
+ */
+public final class HourlyComfortGrid {
+    
+    public static final int HOURS = 24;
+    
+    private static final HourlyComfortGrid EMPTY = new HourlyComfortGrid(new double[HOURS], new double[HOURS], new boolean[HOURS]);
+    
+    private final double[] outdoorScores;
+    private final double[] indoorScores;
+    private final double[] outdoorPrefix = new double[HOURS + 1];
+    private final double[] indoorPrefix = new double[HOURS + 1];
+    private final int[] hourCountPrefix = new int[HOURS + 1];
+    
+    private HourlyComfortGrid(double[] outdoorScores, double[] indoorScores, boolean[] present) {
+        this.outdoorScores = outdoorScores;
+        this.indoorScores = indoorScores;
+        for (int hour = 0; hour < HOURS; hour++) {
+            outdoorPrefix[hour + 1] = outdoorPrefix[hour] + outdoorScores[hour];
+            indoorPrefix[hour + 1] = indoorPrefix[hour] + indoorScores[hour];
+            hourCountPrefix[hour + 1] = hourCountPrefix[hour] + (present[hour] ? 1 : 0);
+        }
+    }
+    
+    /**
+     * Builds the grid from one day's rows. Rows without a forecast hour (daily or current readings) or without
+     * computed scores are ignored; if several rows share an hour the last one wins.
+     */
+    public static HourlyComfortGrid from(List<WeatherData> rows) {
+        double[] outdoorScores = new double[HOURS];
+        double[] indoorScores = new double[HOURS];
+        boolean[] present = new boolean[HOURS];
+        boolean any = false;
+        
+        for (WeatherData row : rows) {
+            Integer hour = row.getForecastHour();
+            if (hour == null || hour < 0 || hour >= HOURS
+                    || row.getOutdoorActivityScore() == null || row.getIndoorActivityScore() == null) {
+                continue;
+            }
+            outdoorScores[hour] = row.getOutdoorActivityScore();
+            indoorScores[hour] = row.getIndoorActivityScore();
+            present[hour] = true;
+            any = true;
+        }
+        
+        return any ? new HourlyComfortGrid(outdoorScores, indoorScores, present) : EMPTY;
+    }
+    
+    public boolean isEmpty() {
+        return hourCountPrefix[HOURS] == 0;
+    }
+    
+    public double outdoorScore(int hour) {
+        return outdoorScores[hour];
+    }
+    
+    public double indoorScore(int hour) {
+        return indoorScores[hour];
+    }
+    
+    /**
+     * Average outdoor score over the hours in [startHour, endHour) that have a forecast, or 0 when none do.
+     */
+    public double averageOutdoorScore(int startHour, int endHour) {
+        return average(outdoorPrefix, startHour, endHour);
+    }
+    
+    /**
+     * Average indoor score over the hours in [startHour, endHour) that have a forecast, or 0 when none do.
+     */
+    public double averageIndoorScore(int startHour, int endHour) {
+        return average(indoorPrefix, startHour, endHour);
+    }
+    
+    private double average(double[] prefix, int startHour, int endHour) {
+        int from = Math.max(0, startHour);
+        int to = Math.min(HOURS, endHour);
+        if (from >= to) {
+            return 0;
+        }
+        int hourCount = hourCountPrefix[to] - hourCountPrefix[from];
+        return hourCount > 0 ? (prefix[to] - prefix[from]) / hourCount : 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.model.LlmResponseCacheEntry;
+import com.holidayplanner.repository.LlmResponseCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Content-addressed cache of chat completions. Entries are keyed on a SHA-256 of the model, temperature and
+ * whitespace-normalized prompt, held in an in-memory LRU tier and optionally in the llm_response_cache table.
+ */
+@Component
+@Slf4j
+public class LlmResponseCache {
+    
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private final LlmResponseCacheRepository llmResponseCacheRepository;
+    private final String model;
+    private final double temperature;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final boolean enabled;
+    private final boolean persistentEnabled;
+    private final Map<String, MemoryEntry> entries;
+    
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong persistentErrors = new AtomicLong();
+    
+    public LlmResponseCache(LlmResponseCacheRepository llmResponseCacheRepository,
+                            @Value("${spring.ai.openai.chat.model:gpt-4-turbo-preview}") String model,
+                            @Value("${spring.ai.openai.chat.temperature:0.7}") double temperature,
+                            @Value("${ai.cache.enabled:true}") boolean enabled,
+                            @Value("${ai.cache.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${ai.cache.max-entries:500}") int maxEntries,
+                            @Value("${ai.cache.persistent.enabled:false}") boolean persistentEnabled) {
+        this.llmResponseCacheRepository = llmResponseCacheRepository;
+        this.model = model;
+        this.temperature = temperature;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxEntries = maxEntries;
+        this.persistentEnabled = persistentEnabled;
+        this.entries = new LinkedHashMap<>(128, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MemoryEntry> eldest) {
+                if (size() > LlmResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Returns the cached response for the prompt, or calls the model and caches its answer. Exceptions thrown by
+     * the call propagate to the caller and nothing is cached.
+     */
+    public String getOrCompute(Prompt prompt, Supplier<String> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        
+        String key = cacheKey(prompt);
+        Optional<String> cached = lookup(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        misses.incrementAndGet();
+        String response = call.get();
+        if (response != null && !response.isBlank()) {
+            store(key, response);
+        }
+        return response;
+    }
+    
+    private Optional<String> lookup(String key) {
+        synchronized (entries) {
+            MemoryEntry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired()) {
+                    memoryHits.incrementAndGet();
+                    return Optional.of(entry.response);
+                }
+                entries.remove(key);
+            }
+        }
+        
+        if (!persistentEnabled) {
+            return Optional.empty();
+        }
+        
+        try {
+            Optional<LlmResponseCacheEntry> persisted = llmResponseCacheRepository.findValid(key, LocalDateTime.now());
+            persisted.ifPresent(entry -> {
+                persistentHits.incrementAndGet();
+                long remainingNanos = Duration.between(LocalDateTime.now(), entry.getExpiresAt()).toNanos();
+                putInMemory(key, entry.getResponse(), System.nanoTime() + remainingNanos);
+            });
+            return persisted.map(LlmResponseCacheEntry::getResponse);
+        } catch (Exception e) {
+            persistentErrors.incrementAndGet();
+            log.warn("Error reading persistent LLM response cache: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private void store(String key, String response) {
+        stores.incrementAndGet();
+        putInMemory(key, response, System.nanoTime() + ttl.toNanos());
+        
+        if (persistentEnabled) {
+            try {
+                LlmResponseCacheEntry entry = new LlmResponseCacheEntry();
+                entry.setPromptHash(key);
+                entry.setModel(model);
+                entry.setTemperature(temperature);
+                entry.setResponse(response);
+                entry.setExpiresAt(LocalDateTime.now().plus(ttl));
+                llmResponseCacheRepository.save(entry);
+            } catch (Exception e) {
+                persistentErrors.incrementAndGet();
+                log.warn("Error writing persistent LLM response cache: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void putInMemory(String key, String response, long expiresAtNanos) {
+        synchronized (entries) {
+            entries.put(key, new MemoryEntry(response, expiresAtNanos));
+        }
+    }
+    
+    private String cacheKey(Prompt prompt) {
+        String normalizedPrompt = prompt.getInstructions().stream()
+                .map(message -> message.getMessageType() + ":" + WHITESPACE.matcher(message.getContent()).replaceAll(" ").trim())
+                .collect(Collectors.joining("\n"));
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + "\n" + temperature + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(normalizedPrompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${ai.cache.persistent.purge-interval-ms:3600000}")
+    public void purgeExpiredEntries() {
+        if (!persistentEnabled) {
+            return;
+        }
+        int purged = llmResponseCacheRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired LLM response cache entries", purged);
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        long memoryHitCount = memoryHits.get();
+        long persistentHitCount = persistentHits.get();
+        long missCount = misses.get();
+        long lookups = memoryHitCount + persistentHitCount + missCount;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("persistentEnabled", persistentEnabled);
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttl.toMinutes());
+        stats.put("memoryHits", memoryHitCount);
+        stats.put("persistentHits", persistentHitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups > 0 ? (double) (memoryHitCount + persistentHitCount) / lookups : 0.0);
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("persistentErrors", persistentErrors.get());
+        return stats;
+    }
+    
+    private record MemoryEntry(String response, long expiresAtNanos) {
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
\ No newline at end of file
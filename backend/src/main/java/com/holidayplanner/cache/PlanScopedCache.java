@@ -0,0 +1,182 @@
+package com.holidayplanner.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU of one mutable value per holiday plan, kept current by changes that are applied once their
+ * transaction commits. Values are only read and mutated while holding the cache lock.
+ * <p>
+ * Changes are only seen by the instance that made them, and writes that bypass the service never reach the cache
+ * at all. Entries therefore expire a fixed time after they were loaded, which bounds how long such a change stays
+ * invisible.
+ */
+public class PlanScopedCache<V> {
+    
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Map<Long, Entry<V>> entries;
+    
+    // Bumped on every change about to commit; a load only caches its result if nothing committed while it ran
+    private final AtomicLong writeSequence = new AtomicLong();
+    
+    // Transactions between their database commit and their change being applied. A load in that window may
+    // already see the change, so caching it and then applying the change would apply it twice.
+    private final AtomicInteger pendingCommits = new AtomicInteger();
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong deltaUpdates = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    
+    public PlanScopedCache(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<V>> eldest) {
+                if (size() > PlanScopedCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Applies {@code reader} to the plan's value under the cache lock, loading the value through {@code loader} on
+     * a miss. The loader runs without the lock held.
+     */
+    public <R> R read(Long planId, Supplier<V> loader, Function<V, R> reader) {
+        long sequence;
+        boolean cacheable;
+        synchronized (entries) {
+            Entry<V> cached = entries.get(planId);
+            if (cached != null && cached.isExpired()) {
+                entries.remove(planId);
+                expirations.incrementAndGet();
+                cached = null;
+            }
+            if (cached != null) {
+                hits.incrementAndGet();
+                return reader.apply(cached.value);
+            }
+            sequence = writeSequence.get();
+            cacheable = pendingCommits.get() == 0;
+        }
+        misses.incrementAndGet();
+        
+        V loaded = loader.get();
+        synchronized (entries) {
+            if (cacheable && writeSequence.get() == sequence) {
+                entries.putIfAbsent(planId, new Entry<>(loaded, System.nanoTime() + ttl.toNanos()));
+            }
+            return reader.apply(loaded);
+        }
+    }
+    
+    /**
+     * Applies {@code delta} to the plan's cached value once the current transaction commits; does nothing if the
+     * plan is not cached by then. Outside a transaction the delta is applied immediately.
+     */
+    public void update(Long planId, Consumer<V> delta) {
+        afterCommit(() -> {
+            synchronized (entries) {
+                writeSequence.incrementAndGet();
+                Entry<V> cached = entries.get(planId);
+                if (cached != null) {
+                    delta.accept(cached.value);
+                    deltaUpdates.incrementAndGet();
+                }
+            }
+        });
+    }
+    
+    // Drops the plan once the current transaction commits, or immediately when called outside a transaction
+    public void invalidate(Long planId) {
+        afterCommit(() -> evict(planId));
+    }
+    
+    // Drops the plan right away, for a cached value that is about to be checked against the database
+    public void evict(Long planId) {
+        synchronized (entries) {
+            writeSequence.incrementAndGet();
+            if (entries.remove(planId) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttl.toMinutes());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        stats.put("deltaUpdates", deltaUpdates.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+    
+    // Changes from a transaction that rolls back must not reach the cache. From just before the commit until the
+    // change is applied, loads do not cache what they read.
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+            
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (entries) {
+                    pendingCommits.incrementAndGet();
+                    writeSequence.incrementAndGet();
+                }
+                committing = true;
+            }
+            
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) {
+                    pendingCommits.decrementAndGet();
+                }
+            }
+        });
+    }
+    
+    private record Entry<V>(V value, long expiresAtNanos) {
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.dto.ActivityStatisticsRow;
+import com.holidayplanner.model.Activity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Per-plan statistics snapshots. Single-activity changes are applied as deltas once their transaction commits, so
+ * reads hand back a prebuilt map without touching the database. Bulk changes drop the snapshot instead, and the
+ * next read reloads it from one grouped aggregate query. Snapshots expire after
+ * {@code holiday-plans.statistics-cache.ttl-minutes}, so changes made through other instances show up within that.
+ */
+@Component
+@Slf4j
+public class PlanStatisticsCache {
+    
+    private final PlanScopedCache<PlanStatistics> cache;
+    
+    public PlanStatisticsCache(@Value("${holiday-plans.statistics-cache.max-entries:10000}") int maxEntries,
+                               @Value("${holiday-plans.statistics-cache.ttl-minutes:10}") long ttlMinutes) {
+        this.cache = new PlanScopedCache<>(maxEntries, Duration.ofMinutes(ttlMinutes));
+    }
+    
+    /**
+     * Returns the plan's statistics, loading and caching them through {@code loader} on a miss.
+     */
+    public Map<String, Object> getOrLoad(Long planId, Supplier<Source> loader) {
+        return cache.read(planId, () -> PlanStatistics.from(loader.get()), statistics -> statistics.view);
+    }
+    
+    public void activityAdded(Long planId, ActivityFacts added) {
+        applyDelta(planId, statistics -> statistics.apply(added, 1));
+    }
+    
+    public void activityRemoved(Long planId, ActivityFacts removed) {
+        applyDelta(planId, statistics -> statistics.apply(removed, -1));
+    }
+    
+    public void activityChanged(Long planId, ActivityFacts before, ActivityFacts after) {
+        applyDelta(planId, statistics -> {
+            statistics.apply(before, -1);
+            statistics.apply(after, 1);
+        });
+    }
+    
+    // For plan edits and bulk activity changes that are cheaper to reload than to replay
+    public void invalidate(Long planId) {
+        cache.invalidate(planId);
+    }
+    
+    public Map<String, Object> getStatistics() {
+        return cache.getStatistics();
+    }
+    
+    private void applyDelta(Long planId, Consumer<PlanStatistics> delta) {
+        cache.update(planId, statistics -> {
+            delta.accept(statistics);
+            statistics.refreshView();
+        });
+    }
+    
+    /**
+     * What the plan statistics are loaded from: the plan's dates and the grouped activity aggregate.
+     */
+    public record Source(LocalDate startDate, LocalDate endDate, List<ActivityStatisticsRow> rows) {
+    }
+    
+    /**
+     * The fields of one activity that feed the statistics, captured before and after a change.
+     */
+    public record ActivityFacts(Activity.ActivityType type, Activity.TimeSlot timeSlot, boolean weatherDependent,
+                                boolean aiOptimized, double cost, long durationMinutes) {
+        
+        public static ActivityFacts of(Activity activity) {
+            return new ActivityFacts(activity.getType(), activity.getTimeSlot(),
+                    Boolean.TRUE.equals(activity.getWeatherDependent()),
+                    Boolean.TRUE.equals(activity.getAiOptimized()),
+                    activity.getCostEstimate() != null ? activity.getCostEstimate() : 0,
+                    activity.getEstimatedDurationMinutes() != null ? activity.getEstimatedDurationMinutes() : 0);
+        }
+    }
+    
+    // Mutated only while holding the cache lock; readers only see the immutable view
+    private static final class PlanStatistics {
+        
+        private final long totalDays;
+        private final long[] activitiesByType = new long[Activity.ActivityType.values().length];
+        private final long[] activitiesByTimeSlot = new long[Activity.TimeSlot.values().length];
+        private long totalActivities;
+        private long weatherDependent;
+        private long aiOptimized;
+        private double totalCost;
+        private long totalDurationMinutes;
+        
+        private volatile Map<String, Object> view;
+        
+        private PlanStatistics(long totalDays) {
+            this.totalDays = totalDays;
+        }
+        
+        static PlanStatistics from(Source source) {
+            PlanStatistics statistics = new PlanStatistics(source.endDate().toEpochDay() - source.startDate().toEpochDay() + 1);
+            for (ActivityStatisticsRow row : source.rows()) {
+                long count = row.activities() != null ? row.activities() : 0;
+                statistics.totalActivities += count;
+                statistics.activitiesByType[row.type().ordinal()] += count;
+                statistics.activitiesByTimeSlot[row.timeSlot().ordinal()] += count;
+                statistics.weatherDependent += row.weatherDependent() != null ? row.weatherDependent() : 0;
+                statistics.aiOptimized += row.aiOptimized() != null ? row.aiOptimized() : 0;
+                statistics.totalCost += row.totalCost() != null ? row.totalCost() : 0;
+                statistics.totalDurationMinutes += row.totalDurationMinutes() != null ? row.totalDurationMinutes() : 0;
+            }
+            statistics.refreshView();
+            return statistics;
+        }
+        
+        void apply(ActivityFacts facts, int sign) {
+            totalActivities += sign;
+            activitiesByType[facts.type().ordinal()] += sign;
+            activitiesByTimeSlot[facts.timeSlot().ordinal()] += sign;
+            if (facts.weatherDependent()) {
+                weatherDependent += sign;
+            }
+            if (facts.aiOptimized()) {
+                aiOptimized += sign;
+            }
+            totalCost += sign * facts.cost();
+            totalDurationMinutes += sign * facts.durationMinutes();
+        }
+        
+        void refreshView() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("totalActivities", totalActivities);
+            stats.put("totalDays", totalDays);
+            stats.put("totalEstimatedCost", totalCost);
+            stats.put("totalEstimatedDurationMinutes", totalDurationMinutes);
+            stats.put("activitiesByType", nonZeroCounts(Activity.ActivityType.values(), activitiesByType));
+            stats.put("activitiesByTimeSlot", nonZeroCounts(Activity.TimeSlot.values(), activitiesByTimeSlot));
+            stats.put("weatherDependentActivities", weatherDependent);
+            stats.put("aiOptimizedActivities", aiOptimized);
+            view = Collections.unmodifiableMap(stats);
+        }
+        
+        private static <E extends Enum<E>> Map<E, Long> nonZeroCounts(E[] keys, long[] counts) {
+            Map<E, Long> result = new LinkedHashMap<>();
+            for (E key : keys) {
+                if (counts[key.ordinal()] != 0) {
+                    result.put(key, counts[key.ordinal()]);
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+}
\ No newline at end of file
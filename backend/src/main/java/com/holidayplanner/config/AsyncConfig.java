@@ -0,0 +1,114 @@
+package com.holidayplanner.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+    
+    @Value("${ai.agent.activity-optimization.parallelism:4}")
+    private int optimizationParallelism;
+    
+    @Value("${ai.agent.activity-optimization.queue-capacity:100}")
+    private int optimizationQueueCapacity;
+    
+    @Value("${ai.agent.activity-optimization.jobs.concurrency:2}")
+    private int optimizationJobConcurrency;
+    
+    @Value("${ai.agent.activity-optimization.jobs.queue-capacity:50}")
+    private int optimizationJobQueueCapacity;
+    
+    @Value("${scheduler.email-notifications.render-parallelism:4}")
+    private int notificationRenderParallelism;
+    
+    // Bounded pool for per-day optimization stages; when it is saturated the task is rejected and the caller falls
+    // back to rule-based timing rather than running the AI call itself past its timeout
+    @Bean
+    public ThreadPoolTaskExecutor optimizationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(optimizationParallelism);
+        executor.setMaxPoolSize(optimizationParallelism);
+        executor.setQueueCapacity(optimizationQueueCapacity);
+        executor.setThreadNamePrefix("optimize-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+    
+    // Runs whole optimization jobs. Kept apart from optimizationExecutor, which the jobs fan out to, so queued jobs
+    // can never starve their own per-day work. Full queues reject; interrupted jobs are re-queued on startup.
+    @Bean
+    public ThreadPoolTaskExecutor optimizationJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(optimizationJobConcurrency);
+        executor.setMaxPoolSize(optimizationJobConcurrency);
+        executor.setQueueCapacity(optimizationJobQueueCapacity);
+        executor.setThreadNamePrefix("optimize-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+    
+    // Renders notification emails for the bulk mailer; the mailer thread renders itself when the pool is saturated
+    @Bean
+    public ThreadPoolTaskExecutor notificationRenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationRenderParallelism);
+        executor.setMaxPoolSize(notificationRenderParallelism);
+        executor.setQueueCapacity(notificationRenderParallelism * 4);
+        executor.setThreadNamePrefix("notify-render-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+    
+    // Declaring any Executor bean switches off Spring Boot's default application executor (used for MVC async
+    // requests), so it is re-declared here with the same platform/virtual thread behaviour
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(Environment environment,
+                                                     SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder,
+                                                     ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleAsyncTaskExecutorBuilder.build();
+        }
+        return threadPoolTaskExecutorBuilder.build();
+    }
+    
+    // Renews optimization job leases on its own thread: the shared scheduler also runs the bulk mailer, the
+    // weather prefetch and outbox batches, which can block longer than a lease lasts
+    @Bean
+    public ThreadPoolTaskScheduler optimizationLeaseScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("optimize-lease-");
+        return scheduler;
+    }
+    
+    // Declaring optimizationLeaseScheduler switches off Spring Boot's default scheduler, so it is re-declared here
+    // with the same platform/virtual thread behaviour and spring.task.scheduling settings. @Scheduled methods without
+    // an explicit scheduler pick it up by name.
+    @Bean(name = "taskScheduler")
+    public TaskScheduler taskScheduler(Environment environment,
+                                       SimpleAsyncTaskSchedulerBuilder simpleAsyncTaskSchedulerBuilder,
+                                       ThreadPoolTaskSchedulerBuilder threadPoolTaskSchedulerBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleAsyncTaskSchedulerBuilder.build();
+        }
+        return threadPoolTaskSchedulerBuilder.build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.holidayplanner.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Binds the italy.cities list from application.yml
+@Configuration
+@ConfigurationProperties(prefix = "italy")
+@Data
+public class ItalyCitiesProperties {
+    
+    private List<City> cities = new ArrayList<>();
+    
+    @Data
+    public static class City {
+        private String name;
+        private Double lat;
+        private Double lon;
+    }
+}
\ No newline at end of file
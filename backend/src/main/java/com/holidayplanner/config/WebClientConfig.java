@@ -0,0 +1,57 @@
+package com.holidayplanner.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class WebClientConfig {
+    
+    @Value("${weather.api.client.max-connections:50}")
+    private int maxConnections;
+    
+    @Value("${weather.api.client.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+    
+    @Value("${weather.api.client.max-idle-time-seconds:30}")
+    private long maxIdleTimeSeconds;
+    
+    @Value("${weather.api.client.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+    
+    @Value("${weather.api.client.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+    
+    @Value("${weather.api.client.max-in-memory-size-kb:2048}")
+    private int maxInMemorySizeKb;
+    
+    // One pooled, keep-alive client shared by every OpenWeather call instead of a new WebClient per request
+    @Bean
+    public WebClient weatherWebClient(WebClient.Builder webClientBuilder) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("openweather")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleTimeSeconds))
+                .build();
+        
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .compress(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                // The only read timeout: per request, from sending it until the response arrives
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySizeKb * 1024))
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.holidayplanner.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    private final EntityManagerFactory entityManagerFactory;
+    
+    // Open-in-view, as Spring Boot registers it, minus the SSE endpoints: an async request keeps its entity manager,
+    // and with it a pooled JDBC connection, until the stream ends, so every subscriber would pin a connection
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor)
+                .excludePathPatterns("/api/holidays/optimization/jobs/*/events");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.holidayplanner.controller;
+
+import com.holidayplanner.service.DailyNotificationMailer;
+import com.holidayplanner.service.EmailOutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/email")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins}")
+public class EmailController {
+    
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+    private final DailyNotificationMailer dailyNotificationMailer;
+    
+    @GetMapping("/outbox/statistics")
+    public ResponseEntity<Map<String, Object>> getOutboxStatistics() {
+        log.info("Fetching email outbox statistics");
+        
+        Map<String, Object> statistics = emailOutboxDispatcher.getStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+    
+    @PostMapping("/notifications/run")
+    public ResponseEntity<Map<String, Object>> runDailyNotifications(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        log.info("Running daily notification mailer on demand");
+        
+        Map<String, Object> run = dailyNotificationMailer.run(date != null ? date : LocalDate.now());
+        if (run == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Daily notification mailer is already running"));
+        }
+        return ResponseEntity.ok(run);
+    }
+    
+    @GetMapping("/notifications/statistics")
+    public ResponseEntity<Map<String, Object>> getDailyNotificationStatistics() {
+        log.info("Fetching daily notification mailer statistics");
+        
+        Map<String, Object> statistics = dailyNotificationMailer.getLastRun();
+        return ResponseEntity.ok(statistics);
+    }
+}
\ No newline at end of file
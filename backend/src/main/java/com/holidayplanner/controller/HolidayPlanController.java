@@ -1,22 +1,38 @@
 package com.holidayplanner.controller;
 
+import com.holidayplanner.cache.ActivityIntervalTree;
+import com.holidayplanner.dto.ActivitySummary;
+import com.holidayplanner.dto.BulkCloneRequest;
+import com.holidayplanner.dto.ExcelImportResult;
+import com.holidayplanner.dto.HolidayPlanSummary;
 import com.holidayplanner.model.Activity;
 import com.holidayplanner.model.HolidayPlan;
+import com.holidayplanner.model.OptimizationJob;
+import com.holidayplanner.service.ActivityConflictException;
 import com.holidayplanner.service.ActivityOptimizationService;
 import com.holidayplanner.service.EmailService;
+import com.holidayplanner.service.ExcelItineraryWriter;
 import com.holidayplanner.service.HolidayPlanService;
+import com.holidayplanner.service.OptimizationJobService;
+import com.holidayplanner.service.KeysetPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +45,11 @@ public class HolidayPlanController {
     
     private final HolidayPlanService holidayPlanService;
     private final ActivityOptimizationService activityOptimizationService;
+    private final OptimizationJobService optimizationJobService;
     private final EmailService emailService;
     
     @GetMapping
-    public ResponseEntity<Page<HolidayPlan>> getAllHolidayPlans(
+    public ResponseEntity<Page<HolidayPlanSummary>> getAllHolidayPlans(
             @RequestParam(required = false) String userEmail,
             @RequestParam(required = false) String destination,
             @RequestParam(required = false) HolidayPlan.PlanStatus status,
@@ -43,12 +60,37 @@ public class HolidayPlanController {
         log.info("Fetching holiday plans with filters - user: {}, destination: {}, status: {}", 
                 userEmail, destination, status);
         
-        Page<HolidayPlan> plans = holidayPlanService.findWithFilters(
+        Page<HolidayPlanSummary> plans = holidayPlanService.findWithFilters(
                 userEmail, destination, status, startDate, endDate, pageable);
         
         return ResponseEntity.ok(plans);
     }
     
+    @GetMapping("/keyset")
+    public ResponseEntity<KeysetPage<HolidayPlanSummary>> getHolidayPlansKeyset(
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) HolidayPlan.PlanStatus status,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) LocalDate afterStartDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.info("Fetching holiday plans after ({}, {}) - user: {}, destination: {}, status: {}",
+                afterStartDate, afterId, userEmail, destination, status);
+        
+        // The cursor is the (startDate, id) of the last row; half of it cannot position the page
+        if ((afterStartDate == null) != (afterId == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        KeysetPage<HolidayPlanSummary> plans = holidayPlanService.findWithFiltersAfter(
+                userEmail, destination, status, startDate, endDate, afterStartDate, afterId, size);
+        
+        return ResponseEntity.ok(plans);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<HolidayPlan> getHolidayPlan(@PathVariable Long id) {
         log.info("Fetching holiday plan with id: {}", id);
@@ -85,7 +127,7 @@ public class HolidayPlanController {
     }
     
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<HolidayPlan> uploadExcelFile(
+    public ResponseEntity<ExcelImportResult> uploadExcelFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("userEmail") String userEmail,
             @RequestParam("destination") String destination) {
@@ -97,8 +139,8 @@ public class HolidayPlanController {
         }
         
         try {
-            HolidayPlan plan = holidayPlanService.createHolidayPlanFromExcel(file, userEmail, destination);
-            return ResponseEntity.status(HttpStatus.CREATED).body(plan);
+            ExcelImportResult result = holidayPlanService.createHolidayPlanFromExcel(file, userEmail, destination);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
         } catch (Exception e) {
             log.error("Error processing Excel file: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -110,15 +152,13 @@ public class HolidayPlanController {
         log.info("Optimizing holiday plan with id: {}", id);
         
         try {
-            HolidayPlan plan = holidayPlanService.findById(id);
-            List<Activity> optimizedActivities = activityOptimizationService.optimizeActivitiesForWeather(plan);
-            
-            // Send optimization email
-            emailService.sendHolidayPlanOptimizationEmail(plan.getUserEmail(), plan, optimizedActivities);
+            // Returns immediately; progress and the result are streamed from the events endpoint
+            OptimizationJob job = optimizationJobService.submit(id);
             
-            return ResponseEntity.ok(Map.of(
-                    "message", "Holiday plan optimized successfully",
-                    "optimizedActivities", optimizedActivities.size(),
+            return ResponseEntity.accepted().body(Map.of(
+                    "message", "Holiday plan optimization started",
+                    "jobId", job.getId(),
+                    "status", job.getStatus(),
                     "planId", id
             ));
         } catch (Exception e) {
@@ -128,33 +168,57 @@ public class HolidayPlanController {
         }
     }
     
+    @GetMapping("/optimization/jobs/{jobId}")
+    public ResponseEntity<OptimizationJob> getOptimizationJob(@PathVariable Long jobId) {
+        log.info("Fetching optimization job: {}", jobId);
+        
+        OptimizationJob job = optimizationJobService.getJob(jobId);
+        return ResponseEntity.ok(job);
+    }
+    
+    @GetMapping(value = "/optimization/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOptimizationJob(@PathVariable Long jobId) {
+        log.info("Subscribing to optimization job: {}", jobId);
+        
+        return optimizationJobService.subscribe(jobId);
+    }
+    
+    @GetMapping("/optimization/cache/statistics")
+    public ResponseEntity<Map<String, Object>> getAiCacheStatistics() {
+        log.info("Fetching AI response cache statistics");
+        
+        Map<String, Object> statistics = activityOptimizationService.getAiCacheStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+    
     @GetMapping("/{id}/activities")
-    public ResponseEntity<List<Activity>> getHolidayPlanActivities(@PathVariable Long id) {
+    public ResponseEntity<List<ActivitySummary>> getHolidayPlanActivities(@PathVariable Long id) {
         log.info("Fetching activities for holiday plan: {}", id);
         
-        List<Activity> activities = holidayPlanService.getActivitiesForPlan(id);
+        List<ActivitySummary> activities = holidayPlanService.getActivitySummariesForPlan(id);
         return ResponseEntity.ok(activities);
     }
     
     @GetMapping("/{id}/activities/date/{date}")
-    public ResponseEntity<List<Activity>> getActivitiesForDate(
+    public ResponseEntity<List<ActivitySummary>> getActivitiesForDate(
             @PathVariable Long id,
             @PathVariable LocalDate date) {
         
         log.info("Fetching activities for holiday plan: {} on date: {}", id, date);
         
-        List<Activity> activities = holidayPlanService.getActivitiesForDate(id, date);
+        List<ActivitySummary> activities = holidayPlanService.getActivitySummariesForDate(id, date);
         return ResponseEntity.ok(activities);
     }
     
     @PostMapping("/{id}/activities")
     public ResponseEntity<Activity> addActivity(
             @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean allowConflicts,
             @Valid @RequestBody Activity activity) {
         
         log.info("Adding activity to holiday plan: {}", id);
         
-        Activity createdActivity = holidayPlanService.addActivity(id, activity);
+        Activity createdActivity = holidayPlanService.addActivity(id, activity, allowConflicts);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdActivity);
     }
     
@@ -162,14 +226,45 @@ public class HolidayPlanController {
     public ResponseEntity<Activity> updateActivity(
             @PathVariable Long id,
             @PathVariable Long activityId,
+            @RequestParam(defaultValue = "false") boolean allowConflicts,
             @Valid @RequestBody Activity activity) {
         
         log.info("Updating activity {} in holiday plan: {}", activityId, id);
         
-        Activity updatedActivity = holidayPlanService.updateActivity(id, activityId, activity);
+        Activity updatedActivity = holidayPlanService.updateActivity(id, activityId, activity, allowConflicts);
         return ResponseEntity.ok(updatedActivity);
     }
     
+    @GetMapping("/{id}/activities/conflicts")
+    public ResponseEntity<List<ActivityIntervalTree.Interval>> getActivityConflicts(
+            @PathVariable Long id,
+            @RequestParam LocalDate date,
+            @RequestParam LocalTime startTime,
+            @RequestParam LocalTime endTime,
+            @RequestParam(required = false) Long excludeActivityId) {
+        
+        log.info("Checking activity conflicts for holiday plan: {} on {} from {} to {}", id, date, startTime, endTime);
+        
+        List<ActivityIntervalTree.Interval> conflicts = holidayPlanService.findActivityConflicts(
+                id, date, startTime, endTime, excludeActivityId);
+        return ResponseEntity.ok(conflicts);
+    }
+    
+    @GetMapping("/activities/interval-index/statistics")
+    public ResponseEntity<Map<String, Object>> getIntervalIndexStatistics() {
+        log.info("Fetching activity interval index statistics");
+        
+        Map<String, Object> statistics = holidayPlanService.getIntervalIndexStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+    
+    @ExceptionHandler(ActivityConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleActivityConflict(ActivityConflictException e) {
+        log.info("Rejected overlapping activity: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage(), "conflicts", e.getConflicts()));
+    }
+    
     @DeleteMapping("/{id}/activities/{activityId}")
     public ResponseEntity<Void> deleteActivity(
             @PathVariable Long id,
@@ -189,6 +284,14 @@ public class HolidayPlanController {
         return ResponseEntity.ok(statistics);
     }
     
+    @GetMapping("/statistics/cache/statistics")
+    public ResponseEntity<Map<String, Object>> getStatisticsCacheStatistics() {
+        log.info("Fetching plan statistics cache statistics");
+        
+        Map<String, Object> statistics = holidayPlanService.getStatisticsCacheStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+    
     @PostMapping("/{id}/clone")
     public ResponseEntity<HolidayPlan> cloneHolidayPlan(
             @PathVariable Long id,
@@ -201,6 +304,17 @@ public class HolidayPlanController {
         return ResponseEntity.status(HttpStatus.CREATED).body(clonedPlan);
     }
     
+    @PostMapping("/{id}/clone-many")
+    public ResponseEntity<List<HolidayPlanSummary>> cloneHolidayPlanForUsers(
+            @PathVariable Long id,
+            @RequestBody BulkCloneRequest request) {
+        
+        log.info("Cloning holiday plan: {} for {} users", id, request.userEmails() != null ? request.userEmails().size() : 0);
+        
+        List<HolidayPlanSummary> clonedPlans = holidayPlanService.cloneHolidayPlanForUsers(id, request.userEmails(), request.newTitle());
+        return ResponseEntity.status(HttpStatus.CREATED).body(clonedPlans);
+    }
+    
     @PostMapping("/{id}/export")
     public ResponseEntity<Map<String, Object>> exportHolidayPlan(
             @PathVariable Long id,
@@ -212,6 +326,40 @@ public class HolidayPlanController {
         return ResponseEntity.ok(exportResult);
     }
     
+    @GetMapping("/{id}/export/excel")
+    public ResponseEntity<StreamingResponseBody> downloadHolidayPlanExcel(@PathVariable Long id) {
+        log.info("Streaming Excel export of holiday plan: {}", id);
+        
+        HolidayPlan plan = holidayPlanService.findById(id);
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(holidayPlanService.getExportFilename(plan, "xlsx"), StandardCharsets.UTF_8)
+                .build();
+        
+        // The workbook is written straight to the response on the async request thread
+        StreamingResponseBody body = outputStream -> holidayPlanService.writeExcelExport(plan, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .contentType(MediaType.parseMediaType(ExcelItineraryWriter.CONTENT_TYPE))
+                .body(body);
+    }
+    
+    @GetMapping("/{id}/export/pdf")
+    public ResponseEntity<StreamingResponseBody> downloadHolidayPlanPdf(@PathVariable Long id) {
+        log.info("Streaming PDF export of holiday plan: {}", id);
+        
+        HolidayPlan plan = holidayPlanService.findById(id);
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(holidayPlanService.getExportFilename(plan, "pdf"), StandardCharsets.UTF_8)
+                .build();
+        
+        // Pages are written to the response as soon as they are complete
+        StreamingResponseBody body = outputStream -> holidayPlanService.writePdfExport(plan, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+    
     @PostMapping("/{id}/share")
     public ResponseEntity<Map<String, Object>> shareHolidayPlan(
             @PathVariable Long id,
@@ -235,7 +383,7 @@ public class HolidayPlanController {
             if (daysUntilTrip > 0) {
                 emailService.sendHolidayReminderEmail(plan.getUserEmail(), plan, daysUntilTrip);
                 return ResponseEntity.ok(Map.of(
-                        "message", "Reminder sent successfully",
+                        "message", "Reminder queued for delivery",
                         "daysUntilTrip", daysUntilTrip
                 ));
             } else {
@@ -251,13 +399,13 @@ public class HolidayPlanController {
     }
     
     @GetMapping("/user/{userEmail}/upcoming")
-    public ResponseEntity<List<HolidayPlan>> getUpcomingHolidays(
+    public ResponseEntity<List<HolidayPlanSummary>> getUpcomingHolidays(
             @PathVariable String userEmail,
             @RequestParam(defaultValue = "30") int days) {
         
         log.info("Fetching upcoming holidays for user: {} within {} days", userEmail, days);
         
-        List<HolidayPlan> upcomingPlans = holidayPlanService.getUpcomingHolidaysForUser(userEmail, days);
+        List<HolidayPlanSummary> upcomingPlans = holidayPlanService.getUpcomingHolidaysForUser(userEmail, days);
         return ResponseEntity.ok(upcomingPlans);
     }
     
@@ -0,0 +1,68 @@
+package com.holidayplanner.controller;
+
+import com.holidayplanner.service.WeatherPrefetchService;
+import com.holidayplanner.service.WeatherRetentionService;
+import com.holidayplanner.service.WeatherService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/weather")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "${cors.allowed-origins}")
+public class WeatherController {
+    
+    private final WeatherService weatherService;
+    private final WeatherPrefetchService weatherPrefetchService;
+    private final WeatherRetentionService weatherRetentionService;
+    
+    @GetMapping("/cache/statistics")
+    public ResponseEntity<Map<String, Object>> getForecastCacheStatistics() {
+        log.info("Fetching forecast cache statistics");
+        
+        Map<String, Object> statistics = weatherService.getCacheStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+    
+    @PostMapping("/prefetch")
+    public ResponseEntity<Map<String, Object>> runWeatherPrefetch() {
+        log.info("Running weather prefetch on demand");
+        
+        Map<String, Object> run = weatherPrefetchService.prefetch("manual");
+        if (run == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Weather prefetch is already running"));
+        }
+        return ResponseEntity.ok(run);
+    }
+    
+    @GetMapping("/prefetch/statistics")
+    public ResponseEntity<Map<String, Object>> getWeatherPrefetchStatistics() {
+        log.info("Fetching weather prefetch statistics");
+        
+        Map<String, Object> statistics = weatherPrefetchService.getStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+    
+    @PostMapping("/partitions/maintenance")
+    public ResponseEntity<Map<String, Object>> runPartitionMaintenance() {
+        log.info("Running weather partition maintenance on demand");
+        
+        Map<String, Object> run = weatherRetentionService.maintain("manual");
+        return ResponseEntity.ok(run);
+    }
+    
+    @GetMapping("/partitions/statistics")
+    public ResponseEntity<Map<String, Object>> getPartitionStatistics() {
+        log.info("Fetching weather partition statistics");
+        
+        Map<String, Object> statistics = weatherRetentionService.getStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.holidayplanner.dto;
+
+import com.holidayplanner.model.Activity;
+
+/**
+ * One group of the per-plan statistics aggregate: counts and totals for a single (type, time slot) pair.
+ * Sums are {@code null} when every row of the group has no value.
+ */
+public record ActivityStatisticsRow(
+        Activity.ActivityType type,
+        Activity.TimeSlot timeSlot,
+        Long activities,
+        Long weatherDependent,
+        Long aiOptimized,
+        Double totalCost,
+        Long totalDurationMinutes) {
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.holidayplanner.dto;
+
+import com.holidayplanner.model.Activity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Read model for activity list views. Leaves out the description and notes TEXT columns, booking contact details
+ * and the owning plan, which the planner list does not show.
+ */
+public record ActivitySummary(
+        Long id,
+        String name,
+        LocalDate date,
+        LocalTime startTime,
+        LocalTime endTime,
+        Activity.ActivityType type,
+        Activity.TimeSlot timeSlot,
+        String location,
+        Boolean weatherDependent,
+        Integer priorityLevel,
+        Integer estimatedDurationMinutes,
+        Double costEstimate,
+        Boolean bookingRequired,
+        Boolean aiOptimized,
+        String optimizationReason) {
+}
\ No newline at end of file
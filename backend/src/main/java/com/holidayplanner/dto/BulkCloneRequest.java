@@ -0,0 +1,11 @@
+package com.holidayplanner.dto;
+
+import java.util.List;
+
+/**
+ * Body of a one-to-many plan clone: every listed user receives their own draft copy of the template plan.
+ */
+public record BulkCloneRequest(
+        List<String> userEmails,
+        String newTitle) {
+}
\ No newline at end of file
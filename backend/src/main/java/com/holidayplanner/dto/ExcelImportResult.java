@@ -0,0 +1,17 @@
+package com.holidayplanner.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of an Excel itinerary import. Rows that could not be imported, and values that fell back to a default,
+ * are reported per spreadsheet row (1-based, as shown in Excel) instead of only being logged.
+ */
+public record ExcelImportResult(
+        HolidayPlanSummary plan,
+        int importedActivities,
+        int skippedRows,
+        List<RowError> rowErrors) {
+    
+    public record RowError(int row, String message, boolean skipped) {
+    }
+}
\ No newline at end of file
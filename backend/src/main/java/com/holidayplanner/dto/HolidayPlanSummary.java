@@ -0,0 +1,28 @@
+package com.holidayplanner.dto;
+
+import com.holidayplanner.model.HolidayPlan;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read model for plan list views. Leaves out the notes TEXT column and the lazy activities collection so a page
+ * of plans is loaded with a single narrow select.
+ */
+public record HolidayPlanSummary(
+        Long id,
+        String title,
+        String destination,
+        LocalDate startDate,
+        LocalDate endDate,
+        String userEmail,
+        HolidayPlan.PlanStatus status,
+        Boolean weatherOptimizationEnabled,
+        LocalDateTime lastModifiedDate) {
+    
+    public static HolidayPlanSummary from(HolidayPlan plan) {
+        return new HolidayPlanSummary(plan.getId(), plan.getTitle(), plan.getDestination(), plan.getStartDate(),
+                plan.getEndDate(), plan.getUserEmail(), plan.getStatus(), plan.getWeatherOptimizationEnabled(),
+                plan.getLastModifiedDate());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.holidayplanner.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Payload of the "progress" SSE event sent while an optimization job runs.
+ */
+public record OptimizationProgressEvent(
+        Long jobId,
+        String stage,
+        LocalDate date,
+        int completedDays,
+        int totalDays) {
+}
\ No newline at end of file
@@ -20,8 +20,10 @@ import java.time.LocalTime;
 @EntityListeners(AuditingEntityListener.class)
 public class Activity {
     
+    // Sequence-based ids keep Hibernate insert batching enabled (IDENTITY disables it)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_seq")
+    @SequenceGenerator(name = "activities_seq", sequenceName = "activities_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
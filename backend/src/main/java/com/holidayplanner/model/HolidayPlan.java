@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "holiday_plans")
+@Table(name = "holiday_plans") // indexes are defined in the Flyway migrations
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,39 @@
+package com.holidayplanner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "llm_response_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class LlmResponseCacheEntry {
+    
+    @Id
+    @Column(name = "prompt_hash", length = 64)
+    private String promptHash; // SHA-256 of model, temperature and normalized prompt
+    
+    @Column(nullable = false)
+    private String model;
+    
+    @Column(nullable = false)
+    private Double temperature;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String response;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @CreatedDate
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+}
\ No newline at end of file
@@ -10,16 +10,22 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+// Range-partitioned by date in the database (V4 migration), where the primary key is (id, date)
 @Entity
-@Table(name = "weather_data")
+@Table(name = "weather_data", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_weather_data_forecast_slot",
+                columnNames = {"city", "country", "date", "forecast_hour", "forecast_type"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
 public class WeatherData {
     
+    // Sequence-based ids keep Hibernate insert batching enabled (IDENTITY disables it)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_data_seq")
+    @SequenceGenerator(name = "weather_data_seq", sequenceName = "weather_data_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -88,6 +94,15 @@ public class WeatherData {
     @Column(name = "snow_3h_mm")
     private Double snow3hMm;
     
+    @Column(name = "rain_total_mm")
+    private Double rainTotalMm; // Day total on DAILY and HISTORICAL aggregates
+    
+    @Column(name = "snow_total_mm")
+    private Double snowTotalMm; // Day total on DAILY and HISTORICAL aggregates
+    
+    @Column(name = "sample_count")
+    private Integer sampleCount; // Rows rolled into a DAILY or HISTORICAL aggregate
+    
     @Column(name = "sunrise_time")
     private LocalDateTime sunriseTime;
     
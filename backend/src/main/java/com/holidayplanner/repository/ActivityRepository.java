@@ -1,14 +1,22 @@
 package com.holidayplanner.repository;
 
+import com.holidayplanner.dto.ActivityStatisticsRow;
+import com.holidayplanner.dto.ActivitySummary;
 import com.holidayplanner.model.Activity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
@@ -17,6 +25,55 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     
     List<Activity> findByHolidayPlanIdAndDateOrderByStartTimeAsc(Long holidayPlanId, LocalDate date);
     
+    @Query("SELECT new com.holidayplanner.dto.ActivitySummary(a.id, a.name, a.date, a.startTime, a.endTime, a.type, " +
+           "a.timeSlot, a.location, a.weatherDependent, a.priorityLevel, a.estimatedDurationMinutes, a.costEstimate, " +
+           "a.bookingRequired, a.aiOptimized, a.optimizationReason) " +
+           "FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId ORDER BY a.date ASC, a.startTime ASC")
+    List<ActivitySummary> findSummariesByHolidayPlanId(@Param("holidayPlanId") Long holidayPlanId);
+    
+    @Query("SELECT new com.holidayplanner.dto.ActivitySummary(a.id, a.name, a.date, a.startTime, a.endTime, a.type, " +
+           "a.timeSlot, a.location, a.weatherDependent, a.priorityLevel, a.estimatedDurationMinutes, a.costEstimate, " +
+           "a.bookingRequired, a.aiOptimized, a.optimizationReason) " +
+           "FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId AND a.date = :date ORDER BY a.startTime ASC")
+    List<ActivitySummary> findSummariesByHolidayPlanIdAndDate(@Param("holidayPlanId") Long holidayPlanId, @Param("date") LocalDate date);
+    
+    // Forward-only cursor for exports: rows are fetched from the driver in chunks instead of all at once.
+    // Must be consumed inside a transaction and closed by the caller.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId ORDER BY a.date ASC, a.startTime ASC, a.id ASC")
+    Stream<Activity> streamByHolidayPlanId(@Param("holidayPlanId") Long holidayPlanId);
+    
+    // One query for a whole page of plans; callers group the rows by plan
+    @Query("SELECT a FROM Activity a WHERE a.holidayPlan.id IN :holidayPlanIds AND a.date = :date " +
+           "ORDER BY a.holidayPlan.id ASC, a.startTime ASC, a.id ASC")
+    List<Activity> findByHolidayPlanIdsAndDate(@Param("holidayPlanIds") Collection<Long> holidayPlanIds, @Param("date") LocalDate date);
+    
+    // Copies every activity of the source plan into each target plan in one INSERT ... SELECT. Ids are taken the
+    // way Hibernate's pooled optimizer takes them: each activities_seq value v reserves the block v-49..v
+    // (allocationSize 50), so one nextval covers 50 copied rows and the ids never collide with entity inserts.
+    @Modifying
+    @Query(value = "WITH copies AS (" +
+                   "SELECT a.*, t.plan_id, row_number() OVER (ORDER BY t.ord, a.id) - 1 AS n " +
+                   "FROM activities a CROSS JOIN unnest(CAST(:targetPlanIds AS bigint[])) WITH ORDINALITY AS t(plan_id, ord) " +
+                   "WHERE a.holiday_plan_id = :sourcePlanId" +
+                   "), blocks AS (" +
+                   "SELECT b.block, nextval('activities_seq') AS hi " +
+                   "FROM generate_series(1, (SELECT (count(*) + 49) / 50 FROM copies)) AS b(block)" +
+                   ") " +
+                   "INSERT INTO activities (id, name, description, date, start_time, end_time, type, time_slot, location, " +
+                   "is_weather_dependent, preferred_weather, min_temperature, max_temperature, max_humidity, avoid_rain, " +
+                   "priority_level, estimated_duration_minutes, cost_estimate, booking_required, booking_url, contact_info, " +
+                   "notes, ai_optimized, holiday_plan_id, created_date, last_modified_date) " +
+                   "SELECT b.hi - 49 + c.n % 50, c.name, c.description, c.date, c.start_time, c.end_time, c.type, " +
+                   "c.time_slot, c.location, c.is_weather_dependent, c.preferred_weather, c.min_temperature, " +
+                   "c.max_temperature, c.max_humidity, c.avoid_rain, c.priority_level, c.estimated_duration_minutes, " +
+                   "c.cost_estimate, c.booking_required, c.booking_url, c.contact_info, c.notes, false, c.plan_id, now(), now() " +
+                   "FROM copies c JOIN blocks b ON b.block = c.n / 50 + 1", nativeQuery = true)
+    int copyActivitiesToPlans(@Param("sourcePlanId") Long sourcePlanId, @Param("targetPlanIds") Long[] targetPlanIds);
+    
     List<Activity> findByHolidayPlanIdAndTimeSlotOrderByDateAsc(Long holidayPlanId, Activity.TimeSlot timeSlot);
     
     @Query("SELECT a FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId AND a.weatherDependent = true")
@@ -45,6 +102,14 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     @Query("SELECT a FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId AND a.priorityLevel >= :minPriority ORDER BY a.priorityLevel DESC, a.date ASC")
     List<Activity> findHighPriorityActivities(@Param("holidayPlanId") Long holidayPlanId, @Param("minPriority") Integer minPriority);
     
+    // Everything the plan statistics need in one grouped pass; type and time slot totals are rolled up from the groups
+    @Query("SELECT new com.holidayplanner.dto.ActivityStatisticsRow(a.type, a.timeSlot, COUNT(a), " +
+           "SUM(CASE WHEN a.weatherDependent = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.aiOptimized = true THEN 1 ELSE 0 END), " +
+           "SUM(a.costEstimate), SUM(a.estimatedDurationMinutes)) " +
+           "FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId GROUP BY a.type, a.timeSlot")
+    List<ActivityStatisticsRow> aggregateStatisticsByHolidayPlanId(@Param("holidayPlanId") Long holidayPlanId);
+    
     @Query("SELECT COUNT(a) FROM Activity a WHERE a.holidayPlan.id = :holidayPlanId AND a.date = :date")
     long countActivitiesForDate(@Param("holidayPlanId") Long holidayPlanId, @Param("date") LocalDate date);
     
@@ -0,0 +1,73 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long>, EmailOutboxRepositoryCustom {
+    
+    // Marks up to :limit due messages SENDING under the given claim, together with claims whose lease ran out. Rows
+    // locked by another dispatcher are skipped rather than waited on, so several instances can claim in parallel.
+    // A lapsed claim counts as an attempt, so a message that keeps taking its dispatcher down is not retried forever.
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET status = 'SENDING', claim_token = :claimToken, lease_expires_at = :leaseExpiresAt, " +
+                   "attempts = CASE WHEN status = 'SENDING' THEN attempts + 1 ELSE attempts END " +
+                   "WHERE id IN (SELECT id FROM email_outbox " +
+                   "WHERE (status = 'PENDING' AND next_attempt_at <= :now) " +
+                   "OR (status = 'SENDING' AND lease_expires_at <= :now AND attempts + 1 < :maxAttempts) " +
+                   "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING *", nativeQuery = true)
+    List<EmailOutboxMessage> claimDueMessages(@Param("now") LocalDateTime now, @Param("claimToken") String claimToken,
+                                              @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt, @Param("limit") int limit,
+                                              @Param("maxAttempts") int maxAttempts);
+    
+    // Lapsed claims whose lost attempt was the last one allowed are given up instead of being claimed again
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET status = 'FAILED', attempts = attempts + 1, next_attempt_at = :now, " +
+                   "last_error = 'Lease expired before the delivery was recorded', claim_token = NULL, lease_expires_at = NULL " +
+                   "WHERE status = 'SENDING' AND lease_expires_at <= :now AND attempts + 1 >= :maxAttempts", nativeQuery = true)
+    int failExpiredClaims(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+    
+    // Outcomes only apply while the claim is still held, so a dispatcher whose lease was taken over changes nothing
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET status = 'SENT', attempts = attempts + 1, sent_at = :sentAt, last_error = NULL, " +
+                   "claim_token = NULL, lease_expires_at = NULL " +
+                   "WHERE id IN (:ids) AND status = 'SENDING' AND claim_token = :claimToken", nativeQuery = true)
+    int markSent(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET status = :status, attempts = :attempts, next_attempt_at = :nextAttemptAt, " +
+                   "last_error = :lastError, claim_token = NULL, lease_expires_at = NULL " +
+                   "WHERE id = :id AND status = 'SENDING' AND claim_token = :claimToken", nativeQuery = true)
+    int markAttemptFailed(@Param("id") Long id, @Param("claimToken") String claimToken, @Param("status") String status,
+                          @Param("attempts") int attempts, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("lastError") String lastError);
+    
+    long countByStatus(EmailOutboxMessage.OutboxStatus status);
+    
+    @Query("SELECT MIN(m.createdDate) FROM EmailOutboxMessage m WHERE m.status = 'PENDING'")
+    LocalDateTime findOldestPendingCreatedDate();
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    // A FAILED message's next_attempt_at is when it was given up
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = 'FAILED' AND m.nextAttemptAt < :cutoff")
+    int deleteFailedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.EmailOutboxMessage;
+
+import java.util.List;
+
+public interface EmailOutboxRepositoryCustom {
+    
+    /**
+     * Inserts new outbox messages with one JDBC batch, skipping any whose deduplication key is already in the outbox
+     * (ON CONFLICT DO NOTHING, so concurrent runs cannot both queue a key), and returns the number inserted.
+     */
+    int insertAllSkippingDuplicates(List<EmailOutboxMessage> messages);
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.EmailOutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EmailOutboxRepositoryImpl implements EmailOutboxRepositoryCustom {
+    
+    private static final String INSERT_SQL = """
+            INSERT INTO email_outbox (id, message_type, deduplication_key, recipient, subject, html_body,
+                status, attempts, next_attempt_at, created_date)
+            VALUES (?, ?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)
+            ON CONFLICT (deduplication_key) DO NOTHING
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
+    @Override
+    @Transactional
+    public int insertAllSkippingDuplicates(List<EmailOutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        
+        long[] ids = PooledSequenceIds.allocate(jdbcTemplate, "email_outbox_seq", messages.size());
+        List<Object[]> rows = new ArrayList<>(messages.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < messages.size(); i++) {
+            EmailOutboxMessage message = messages.get(i);
+            rows.add(new Object[]{ids[i], message.getMessageType(), message.getDeduplicationKey(), message.getRecipient(),
+                    message.getSubject(), message.getHtmlBody(), Timestamp.valueOf(message.getNextAttemptAt()), now});
+        }
+        
+        // A skipped duplicate reports an update count of 0
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+            for (int i = 0; i < row.length; i++) {
+                ps.setObject(i + 1, row[i]);
+            }
+        });
+        return Arrays.stream(results).flatMapToInt(Arrays::stream).map(count -> Math.max(count, 0)).sum();
+    }
+}
\ No newline at end of file
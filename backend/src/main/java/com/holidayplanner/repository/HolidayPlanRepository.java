@@ -1,17 +1,22 @@
 package com.holidayplanner.repository;
 
+import com.holidayplanner.dto.HolidayPlanSummary;
 import com.holidayplanner.model.HolidayPlan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface HolidayPlanRepository extends JpaRepository<HolidayPlan, Long> {
+public interface HolidayPlanRepository extends JpaRepository<HolidayPlan, Long>, JpaSpecificationExecutor<HolidayPlan>,
+        HolidayPlanRepositoryCustom {
     
     List<HolidayPlan> findByUserEmailOrderByCreatedDateDesc(String userEmail);
     
@@ -22,9 +27,54 @@ public interface HolidayPlanRepository extends JpaRepository<HolidayPlan, Long>
     @Query("SELECT hp FROM HolidayPlan hp WHERE hp.userEmail = :userEmail AND hp.startDate >= :startDate AND hp.endDate <= :endDate")
     List<HolidayPlan> findUpcomingPlans(@Param("userEmail") String userEmail, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    @Query("SELECT new com.holidayplanner.dto.HolidayPlanSummary(hp.id, hp.title, hp.destination, hp.startDate, hp.endDate, " +
+           "hp.userEmail, hp.status, hp.weatherOptimizationEnabled, hp.lastModifiedDate) " +
+           "FROM HolidayPlan hp WHERE hp.userEmail = :userEmail AND hp.startDate >= :startDate AND hp.endDate <= :endDate " +
+           "ORDER BY hp.startDate ASC, hp.id ASC")
+    List<HolidayPlanSummary> findUpcomingPlanSummaries(@Param("userEmail") String userEmail, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT new com.holidayplanner.dto.HolidayPlanSummary(hp.id, hp.title, hp.destination, hp.startDate, hp.endDate, " +
+           "hp.userEmail, hp.status, hp.weatherOptimizationEnabled, hp.lastModifiedDate) " +
+           "FROM HolidayPlan hp WHERE hp.id IN :ids ORDER BY hp.id ASC")
+    List<HolidayPlanSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT hp FROM HolidayPlan hp WHERE hp.weatherOptimizationEnabled = true AND hp.startDate >= :currentDate")
     List<HolidayPlan> findPlansNeedingWeatherOptimization(@Param("currentDate") LocalDate currentDate);
     
+    // Same plans as findPlansNeedingWeatherOptimization, narrowed to trips overlapping the forecast window
+    @Query("SELECT DISTINCT hp.destination FROM HolidayPlan hp WHERE hp.weatherOptimizationEnabled = true " +
+           "AND hp.startDate <= :windowEnd AND hp.endDate >= :currentDate")
+    List<String> findDestinationsNeedingWeatherForecast(@Param("currentDate") LocalDate currentDate, @Param("windowEnd") LocalDate windowEnd);
+    
+    // Keyset pages over plans in progress on the given date, for the daily itinerary mailer
+    @Query("SELECT hp FROM HolidayPlan hp WHERE hp.startDate <= :date AND hp.endDate >= :date " +
+           "AND hp.status <> :excludedStatus AND hp.id > :afterId ORDER BY hp.id ASC")
+    List<HolidayPlan> findPlansInProgressAfter(@Param("date") LocalDate date, @Param("excludedStatus") HolidayPlan.PlanStatus excludedStatus,
+                                               @Param("afterId") Long afterId, Pageable pageable);
+    
+    // Keyset pages over plans starting on one of the given dates, for the reminder mailer
+    @Query("SELECT hp FROM HolidayPlan hp WHERE hp.startDate IN :startDates " +
+           "AND hp.status <> :excludedStatus AND hp.id > :afterId ORDER BY hp.id ASC")
+    List<HolidayPlan> findPlansStartingOnAfter(@Param("startDates") Collection<LocalDate> startDates, @Param("excludedStatus") HolidayPlan.PlanStatus excludedStatus,
+                                               @Param("afterId") Long afterId, Pageable pageable);
+    
+    // Creates one draft copy of the source plan per email in a single statement and returns the new ids in email
+    // order. RETURNING has no defined order, so the ids are drawn up front next to each email's position and the
+    // result is sorted by that position.
+    @Query(value = "WITH targets AS (" +
+                   "SELECT u.email, u.ord, nextval(pg_get_serial_sequence('holiday_plans', 'id')) AS id " +
+                   "FROM unnest(CAST(:userEmails AS text[])) WITH ORDINALITY AS u(email, ord)" +
+                   "), inserted AS (" +
+                   "INSERT INTO holiday_plans (id, title, destination, start_date, end_date, user_email, status, notes, " +
+                   "weather_optimization_enabled, created_date, last_modified_date) " +
+                   "SELECT t.id, :title, p.destination, p.start_date, p.end_date, t.email, 'DRAFT', p.notes, " +
+                   "p.weather_optimization_enabled, now(), now() " +
+                   "FROM holiday_plans p CROSS JOIN targets t WHERE p.id = :sourcePlanId RETURNING id" +
+                   ") " +
+                   "SELECT t.id FROM targets t JOIN inserted i ON i.id = t.id ORDER BY t.ord", nativeQuery = true)
+    List<Long> insertDraftCopies(@Param("sourcePlanId") Long sourcePlanId, @Param("title") String title,
+                                 @Param("userEmails") String[] userEmails);
+    
     Optional<HolidayPlan> findByGoogleCalendarEventId(String googleCalendarEventId);
     
     @Query("SELECT COUNT(hp) FROM HolidayPlan hp WHERE hp.userEmail = :userEmail AND hp.status = :status")
@@ -32,15 +82,4 @@ public interface HolidayPlanRepository extends JpaRepository<HolidayPlan, Long>
     
     @Query("SELECT DISTINCT hp.destination FROM HolidayPlan hp WHERE hp.userEmail = :userEmail")
     List<String> findDistinctDestinationsByUserEmail(@Param("userEmail") String userEmail);
-    
-    @Query("SELECT hp FROM HolidayPlan hp WHERE hp.userEmail = :userEmail AND " +
-           "(:destination IS NULL OR hp.destination LIKE %:destination%) AND " +
-           "(:status IS NULL OR hp.status = :status) AND " +
-           "(:startDate IS NULL OR hp.startDate >= :startDate) AND " +
-           "(:endDate IS NULL OR hp.endDate <= :endDate)")
-    List<HolidayPlan> findWithFilters(@Param("userEmail") String userEmail,
-                                     @Param("destination") String destination,
-                                     @Param("status") HolidayPlan.PlanStatus status,
-                                     @Param("startDate") LocalDate startDate,
-                                     @Param("endDate") LocalDate endDate);
 }
\ No newline at end of file
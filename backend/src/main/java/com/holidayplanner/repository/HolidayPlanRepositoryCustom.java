@@ -0,0 +1,26 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.dto.HolidayPlanSummary;
+import com.holidayplanner.model.HolidayPlan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface HolidayPlanRepositoryCustom {
+    
+    /**
+     * Offset page of plan summaries matching the specification, selected as a constructor projection so only the
+     * list columns are read.
+     */
+    Page<HolidayPlanSummary> findSummaries(Specification<HolidayPlan> specification, Pageable pageable);
+    
+    /**
+     * Keyset (seek) page of plan summaries matching the specification, ordered by (startDate, id). Rows are read
+     * strictly after the given cursor, or from the beginning when the cursor is {@code null}, so deep pages cost
+     * the same as the first one instead of scanning and discarding an OFFSET.
+     */
+    List<HolidayPlanSummary> findSummariesAfter(Specification<HolidayPlan> specification, LocalDate afterStartDate, Long afterId, int limit);
+}
\ No newline at end of file
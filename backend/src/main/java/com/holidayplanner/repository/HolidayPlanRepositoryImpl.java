@@ -0,0 +1,112 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.dto.HolidayPlanSummary;
+import com.holidayplanner.model.HolidayPlan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HolidayPlanRepositoryImpl implements HolidayPlanRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Page<HolidayPlanSummary> findSummaries(Specification<HolidayPlan> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<HolidayPlanSummary> query = cb.createQuery(HolidayPlanSummary.class);
+        Root<HolidayPlan> root = query.from(HolidayPlan.class);
+        
+        query.select(summaryOf(cb, root))
+                .where(filter(specification, root, query, cb).toArray(Predicate[]::new));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        } else {
+            query.orderBy(cb.asc(root.get("startDate")), cb.asc(root.get("id")));
+        }
+        
+        TypedQuery<HolidayPlanSummary> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        
+        // The count query only runs when the page size does not already tell the total
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(specification));
+    }
+    
+    @Override
+    public List<HolidayPlanSummary> findSummariesAfter(Specification<HolidayPlan> specification, LocalDate afterStartDate, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<HolidayPlanSummary> query = cb.createQuery(HolidayPlanSummary.class);
+        Root<HolidayPlan> root = query.from(HolidayPlan.class);
+        
+        List<Predicate> predicates = filter(specification, root, query, cb);
+        
+        // (start_date, id) > (:afterStartDate, :afterId), written out so it works on every dialect
+        if (afterStartDate != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(root.get("startDate"), afterStartDate),
+                    cb.and(
+                            cb.equal(root.get("startDate"), afterStartDate),
+                            cb.greaterThan(root.get("id"), afterId))));
+        }
+        
+        query.select(summaryOf(cb, root))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(root.get("startDate")), cb.asc(root.get("id")));
+        
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    private long count(Specification<HolidayPlan> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<HolidayPlan> root = query.from(HolidayPlan.class);
+        
+        query.select(cb.count(root))
+                .where(filter(specification, root, query, cb).toArray(Predicate[]::new));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+    
+    private List<Predicate> filter(Specification<HolidayPlan> specification, Root<HolidayPlan> root,
+                                   CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        return predicates;
+    }
+    
+    private CompoundSelection<HolidayPlanSummary> summaryOf(CriteriaBuilder cb, Root<HolidayPlan> root) {
+        return cb.construct(HolidayPlanSummary.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("destination"),
+                root.get("startDate"),
+                root.get("endDate"),
+                root.get("userEmail"),
+                root.get("status"),
+                root.get("weatherOptimizationEnabled"),
+                root.get("lastModifiedDate"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.HolidayPlan;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Composable filters for holiday plan listings. Every filter is optional and a {@code null} argument adds no
+ * predicate, so the generated SQL only contains the conditions that were actually requested.
+ */
+public final class HolidayPlanSpecifications {
+    
+    private HolidayPlanSpecifications() {
+    }
+    
+    public static Specification<HolidayPlan> withFilters(String userEmail, String destination, HolidayPlan.PlanStatus status,
+                                                         LocalDate startDate, LocalDate endDate) {
+        return Specification.where(hasUserEmail(userEmail))
+                .and(destinationStartsWith(destination))
+                .and(hasStatus(status))
+                .and(startsOnOrAfter(startDate))
+                .and(endsOnOrBefore(endDate));
+    }
+    
+    public static Specification<HolidayPlan> hasUserEmail(String userEmail) {
+        if (userEmail == null || userEmail.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("userEmail"), userEmail);
+    }
+    
+    // Prefix match only: a leading wildcard cannot use the destination index
+    public static Specification<HolidayPlan> destinationStartsWith(String destination) {
+        if (destination == null || destination.isBlank()) {
+            return null;
+        }
+        String pattern = escapeLike(destination.trim()) + "%";
+        return (root, query, cb) -> cb.like(root.get("destination"), pattern, '\\');
+    }
+    
+    public static Specification<HolidayPlan> hasStatus(HolidayPlan.PlanStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+    
+    public static Specification<HolidayPlan> startsOnOrAfter(LocalDate startDate) {
+        if (startDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("startDate"), startDate);
+    }
+    
+    public static Specification<HolidayPlan> endsOnOrBefore(LocalDate endDate) {
+        if (endDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("endDate"), endDate);
+    }
+    
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
\ No newline at end of file
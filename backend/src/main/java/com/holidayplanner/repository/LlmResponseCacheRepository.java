@@ -0,0 +1,24 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.LlmResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface LlmResponseCacheRepository extends JpaRepository<LlmResponseCacheEntry, String> {
+    
+    @Query("SELECT e FROM LlmResponseCacheEntry e WHERE e.promptHash = :promptHash AND e.expiresAt > :now")
+    Optional<LlmResponseCacheEntry> findValid(@Param("promptHash") String promptHash, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LlmResponseCacheEntry e WHERE e.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.OptimizationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OptimizationJobRepository extends JpaRepository<OptimizationJob, Long> {
+    
+    List<OptimizationJob> findByStatusInOrderByIdAsc(Collection<OptimizationJob.JobStatus> statuses);
+    
+    Optional<OptimizationJob> findFirstByHolidayPlanIdAndStatusInOrderByIdDesc(Long holidayPlanId, Collection<OptimizationJob.JobStatus> statuses);
+    
+    @Query(value = "SELECT id FROM optimization_jobs WHERE status IN ('QUEUED', 'RUNNING') " +
+                   "AND (lease_expires_at IS NULL OR lease_expires_at < :now) ORDER BY id", nativeQuery = true)
+    List<Long> findActiveJobIdsWithExpiredLease(@Param("now") LocalDateTime now);
+    
+    // Takes over an active job whose lease ran out and queues it again. The lease is re-checked under the row lock,
+    // so when several instances try at once exactly one of them gets 1.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE optimization_jobs SET status = 'QUEUED', lease_owner = :owner, lease_expires_at = :expiresAt " +
+                   "WHERE id = :id AND status IN ('QUEUED', 'RUNNING') " +
+                   "AND (lease_expires_at IS NULL OR lease_expires_at < :now)", nativeQuery = true)
+    int claimExpiredJob(@Param("id") Long id, @Param("owner") String owner,
+                        @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Moves a queued job to RUNNING if this instance still holds its lease
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE optimization_jobs SET status = 'RUNNING', started_at = :now, completed_days = 0, " +
+                   "attempts = COALESCE(attempts, 0) + 1, error_message = NULL, lease_expires_at = :expiresAt, " +
+                   "last_modified_date = :now " +
+                   "WHERE id = :id AND status = 'QUEUED' AND lease_owner = :owner", nativeQuery = true)
+    int startJob(@Param("id") Long id, @Param("owner") String owner,
+                 @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Records the outcome if this instance still holds the lease; 0 means another instance took the job over
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE optimization_jobs SET status = :status, stage = CAST(:stage AS VARCHAR), " +
+                   "total_days = CAST(:totalDays AS INTEGER), completed_days = CAST(:completedDays AS INTEGER), " +
+                   "optimized_activities = CAST(:optimizedActivities AS INTEGER), " +
+                   "error_message = CAST(:errorMessage AS TEXT), completed_at = :now, last_modified_date = :now " +
+                   "WHERE id = :id AND lease_owner = :owner AND status IN ('QUEUED', 'RUNNING')", nativeQuery = true)
+    int finishJob(@Param("id") Long id, @Param("owner") String owner, @Param("status") String status,
+                  @Param("stage") String stage, @Param("totalDays") Integer totalDays,
+                  @Param("completedDays") Integer completedDays, @Param("optimizedActivities") Integer optimizedActivities,
+                  @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE optimization_jobs SET lease_expires_at = :expiresAt " +
+                   "WHERE lease_owner = :owner AND status IN ('QUEUED', 'RUNNING')", nativeQuery = true)
+    int renewLeases(@Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.holidayplanner.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Ids for rows inserted through plain JDBC into tables whose entities use Hibernate's pooled optimizer
+ * (allocationSize 50, sequence INCREMENT BY 50). Ids are taken the way the optimizer takes them: each sequence value
+ * v reserves the block v-49..v, so one nextval covers 50 rows and the ids never collide with entity inserts.
+ */
+final class PooledSequenceIds {
+    
+    static final int BLOCK_SIZE = 50;
+    
+    private PooledSequenceIds() {
+    }
+    
+    static long[] allocate(JdbcTemplate jdbcTemplate, String sequence, int count) {
+        List<Long> blocks = jdbcTemplate.queryForList("SELECT nextval(CAST(? AS regclass)) FROM generate_series(1, ?)",
+                Long.class, sequence, (count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        long[] ids = new long[count];
+        for (int n = 0; n < count; n++) {
+            ids[n] = blocks.get(n / BLOCK_SIZE) - (BLOCK_SIZE - 1) + n % BLOCK_SIZE;
+        }
+        return ids;
+    }
+}
\ No newline at end of file
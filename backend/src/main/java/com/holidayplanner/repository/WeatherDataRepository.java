@@ -7,12 +7,11 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WeatherDataRepository extends JpaRepository<WeatherData, Long> {
+public interface WeatherDataRepository extends JpaRepository<WeatherData, Long>, WeatherDataRepositoryCustom {
     
     Optional<WeatherData> findByCityAndCountryAndDateAndForecastHour(String city, String country, LocalDate date, Integer forecastHour);
     
@@ -74,9 +73,6 @@ public interface WeatherDataRepository extends JpaRepository<WeatherData, Long>
                                                       @Param("date") LocalDate date,
                                                       @Param("minScore") Double minScore);
     
-    @Query("DELETE FROM WeatherData wd WHERE wd.createdDate < :cutoffDate")
-    void deleteOldWeatherData(@Param("cutoffDate") LocalDateTime cutoffDate);
-    
     @Query("SELECT DISTINCT wd.city FROM WeatherData wd WHERE wd.country = :country")
     List<String> findDistinctCitiesByCountry(@Param("country") String country);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.WeatherData;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface WeatherDataRepositoryCustom {
+    
+    /**
+     * Inserts or updates a whole forecast list in one transaction using JDBC batching, resolving duplicates
+     * on (city, country, date, forecast_hour, forecast_type) with ON CONFLICT instead of a select per row.
+     */
+    int upsertAll(List<WeatherData> forecasts);
+    
+    /**
+     * Days in [from, before) that still hold rows of the given type.
+     */
+    List<LocalDate> findDatesToCompact(WeatherData.ForecastType sourceType, LocalDate from, LocalDate before);
+    
+    /**
+     * Replaces the rows of {@code sourceType} on one day with one {@code targetType} aggregate per city (min/max/avg
+     * temperatures, averaged conditions and comfort scores, rain and snow totals) and returns how many rows were
+     * replaced.
+     */
+    int compactDay(LocalDate date, WeatherData.ForecastType sourceType, WeatherData.ForecastType targetType);
+    
+    /**
+     * Creates the missing daily partitions from {@code from} to {@code to} inclusive and returns how many were created.
+     */
+    int createPartitions(LocalDate from, LocalDate to);
+    
+    /**
+     * Detaches and drops the daily partitions before the cutoff and returns how many were dropped.
+     */
+    int dropPartitionsBefore(LocalDate cutoff);
+    
+    /**
+     * Names of the attached partitions with their estimated row counts, ordered by name.
+     */
+    Map<String, Long> findPartitionRowEstimates();
+}
\ No newline at end of file
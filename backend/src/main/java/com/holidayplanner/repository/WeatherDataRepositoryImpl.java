@@ -0,0 +1,228 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.WeatherData;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+@RequiredArgsConstructor
+public class WeatherDataRepositoryImpl implements WeatherDataRepositoryCustom {
+    
+    private static final String UPSERT_SQL = """
+            INSERT INTO weather_data (id, city, country, date, forecast_hour, forecast_type,
+                temperature_celsius, feels_like_celsius, temperature_min, temperature_max,
+                humidity_percent, pressure_hpa, wind_speed_mps, wind_direction_degrees,
+                cloudiness_percent, visibility_meters, weather_main, weather_description, weather_icon,
+                rain_1h_mm, rain_3h_mm, snow_1h_mm, snow_3h_mm,
+                ai_comfort_score, outdoor_activity_score, indoor_activity_score,
+                data_source, created_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?,
+                ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (city, country, date, forecast_hour, forecast_type) DO UPDATE SET
+                temperature_celsius = EXCLUDED.temperature_celsius,
+                feels_like_celsius = EXCLUDED.feels_like_celsius,
+                temperature_min = EXCLUDED.temperature_min,
+                temperature_max = EXCLUDED.temperature_max,
+                humidity_percent = EXCLUDED.humidity_percent,
+                pressure_hpa = EXCLUDED.pressure_hpa,
+                wind_speed_mps = EXCLUDED.wind_speed_mps,
+                wind_direction_degrees = EXCLUDED.wind_direction_degrees,
+                cloudiness_percent = EXCLUDED.cloudiness_percent,
+                visibility_meters = EXCLUDED.visibility_meters,
+                weather_main = EXCLUDED.weather_main,
+                weather_description = EXCLUDED.weather_description,
+                weather_icon = EXCLUDED.weather_icon,
+                rain_1h_mm = EXCLUDED.rain_1h_mm,
+                rain_3h_mm = EXCLUDED.rain_3h_mm,
+                snow_1h_mm = EXCLUDED.snow_1h_mm,
+                snow_3h_mm = EXCLUDED.snow_3h_mm,
+                ai_comfort_score = EXCLUDED.ai_comfort_score,
+                outdoor_activity_score = EXCLUDED.outdoor_activity_score,
+                indoor_activity_score = EXCLUDED.indoor_activity_score
+            """;
+    
+    // Replaces all rows of one type on one day with a single aggregate row per city. An aggregate left by an earlier
+    // run for the same day is folded in rather than duplicated (its NULL forecast_hour never matches the unique
+    // slot key): it is expanded back into sample_count copies, so averages stay weighted by the rows behind them,
+    // while totals count it once. %1$s and %2$s are the rain and snow columns of the source type.
+    private static final String COMPACT_DAY_SQL = """
+            WITH removed AS (
+                DELETE FROM weather_data
+                WHERE date = ?
+                  AND (forecast_type = ?
+                       OR (forecast_type = ? AND forecast_hour IS NULL AND sample_count IS NOT NULL))
+                RETURNING *, coalesce(sample_count, 1) AS weight
+            ), aggregated AS (
+                SELECT city, country, date,
+                    avg(temperature_celsius) AS temperature_celsius, avg(feels_like_celsius) AS feels_like_celsius,
+                    min(coalesce(temperature_min, temperature_celsius)) AS temperature_min,
+                    max(coalesce(temperature_max, temperature_celsius)) AS temperature_max,
+                    round(avg(humidity_percent)) AS humidity_percent, avg(pressure_hpa) AS pressure_hpa,
+                    avg(wind_speed_mps) AS wind_speed_mps,
+                    mode() WITHIN GROUP (ORDER BY wind_direction_degrees) AS wind_direction_degrees,
+                    round(avg(cloudiness_percent)) AS cloudiness_percent, round(avg(visibility_meters)) AS visibility_meters,
+                    max(uv_index) AS uv_index,
+                    mode() WITHIN GROUP (ORDER BY weather_main) AS weather_main,
+                    mode() WITHIN GROUP (ORDER BY weather_description) AS weather_description,
+                    mode() WITHIN GROUP (ORDER BY weather_icon) AS weather_icon,
+                    sum(CASE WHEN sample_count IS NULL THEN %1$s ELSE rain_total_mm END) FILTER (WHERE copy = 1) AS rain_total_mm,
+                    sum(CASE WHEN sample_count IS NULL THEN %2$s ELSE snow_total_mm END) FILTER (WHERE copy = 1) AS snow_total_mm,
+                    count(*) AS sample_count,
+                    avg(ai_comfort_score) AS ai_comfort_score, avg(outdoor_activity_score) AS outdoor_activity_score,
+                    avg(indoor_activity_score) AS indoor_activity_score,
+                    mode() WITHIN GROUP (ORDER BY data_source) AS data_source,
+                    row_number() OVER (ORDER BY city, country) - 1 AS n
+                FROM removed, generate_series(1, removed.weight) AS copy
+                GROUP BY city, country, date
+            ), blocks AS (
+                -- Ids are taken the way Hibernate's pooled optimizer takes them: one nextval reserves 50
+                SELECT b.block, nextval('weather_data_seq') AS hi
+                FROM generate_series(1, (SELECT (count(*) + 49) / 50 FROM aggregated)) AS b(block)
+            ), inserted AS (
+                INSERT INTO weather_data (id, city, country, date, forecast_hour, forecast_type,
+                    temperature_celsius, feels_like_celsius, temperature_min, temperature_max,
+                    humidity_percent, pressure_hpa, wind_speed_mps, wind_direction_degrees,
+                    cloudiness_percent, visibility_meters, uv_index, weather_main, weather_description, weather_icon,
+                    rain_total_mm, snow_total_mm, sample_count,
+                    ai_comfort_score, outdoor_activity_score, indoor_activity_score,
+                    data_source, created_date)
+                SELECT b.hi - 49 + a.n %% 50, a.city, a.country, a.date, NULL, ?,
+                    a.temperature_celsius, a.feels_like_celsius, a.temperature_min, a.temperature_max,
+                    a.humidity_percent, a.pressure_hpa, a.wind_speed_mps, a.wind_direction_degrees,
+                    a.cloudiness_percent, a.visibility_meters, a.uv_index, a.weather_main, a.weather_description, a.weather_icon,
+                    a.rain_total_mm, a.snow_total_mm, a.sample_count,
+                    a.ai_comfort_score, a.outdoor_activity_score, a.indoor_activity_score,
+                    a.data_source, now()
+                FROM aggregated a JOIN blocks b ON b.block = a.n / 50 + 1
+            )
+            SELECT count(*) FROM removed WHERE sample_count IS NULL
+            """;
+    
+    private static final String PARTITION_ROW_ESTIMATES_SQL = """
+            SELECT c.relname, c.reltuples::bigint AS estimated_rows
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'weather_data'::regclass
+            ORDER BY c.relname
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
+    @Override
+    @Transactional
+    public int upsertAll(List<WeatherData> forecasts) {
+        if (forecasts.isEmpty()) {
+            return 0;
+        }
+        
+        // Rows that hit ON CONFLICT still use up their id, so ids come 50 to a nextval rather than one each
+        long[] ids = PooledSequenceIds.allocate(jdbcTemplate, "weather_data_seq", forecasts.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> rows = IntStream.range(0, forecasts.size()).boxed().toList();
+        int[][] results = jdbcTemplate.batchUpdate(UPSERT_SQL, rows, batchSize, (ps, row) -> {
+            WeatherData weatherData = forecasts.get(row);
+            int i = 1;
+            ps.setLong(i++, ids[row]);
+            ps.setString(i++, weatherData.getCity());
+            ps.setString(i++, weatherData.getCountry());
+            ps.setObject(i++, weatherData.getDate());
+            setNullable(ps, i++, weatherData.getForecastHour(), Types.INTEGER);
+            setNullable(ps, i++, weatherData.getForecastType() != null ? weatherData.getForecastType().name() : null, Types.VARCHAR);
+            setNullable(ps, i++, weatherData.getTemperatureCelsius(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getFeelsLikeCelsius(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getTemperatureMin(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getTemperatureMax(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getHumidityPercent(), Types.INTEGER);
+            setNullable(ps, i++, weatherData.getPressureHpa(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getWindSpeedMps(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getWindDirectionDegrees(), Types.INTEGER);
+            setNullable(ps, i++, weatherData.getCloudinessPercent(), Types.INTEGER);
+            setNullable(ps, i++, weatherData.getVisibilityMeters(), Types.INTEGER);
+            setNullable(ps, i++, weatherData.getWeatherMain(), Types.VARCHAR);
+            setNullable(ps, i++, weatherData.getWeatherDescription(), Types.VARCHAR);
+            setNullable(ps, i++, weatherData.getWeatherIcon(), Types.VARCHAR);
+            setNullable(ps, i++, weatherData.getRain1hMm(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getRain3hMm(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getSnow1hMm(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getSnow3hMm(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getAiComfortScore(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getOutdoorActivityScore(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getIndoorActivityScore(), Types.DOUBLE);
+            setNullable(ps, i++, weatherData.getDataSource(), Types.VARCHAR);
+            ps.setTimestamp(i, now);
+        });
+        
+        return Arrays.stream(results).mapToInt(batch -> batch.length).sum();
+    }
+    
+    @Override
+    public List<LocalDate> findDatesToCompact(WeatherData.ForecastType sourceType, LocalDate from, LocalDate before) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT date FROM weather_data WHERE forecast_type = ? AND date >= ? AND date < ? ORDER BY date",
+                LocalDate.class, sourceType.name(), from, before);
+    }
+    
+    @Override
+    @Transactional
+    public int compactDay(LocalDate date, WeatherData.ForecastType sourceType, WeatherData.ForecastType targetType) {
+        // CURRENT observations carry the rain and snow of the last hour, HOURLY forecasts those of their 3-hour slot
+        String sql = sourceType == WeatherData.ForecastType.CURRENT
+                ? COMPACT_DAY_SQL.formatted("rain_1h_mm", "snow_1h_mm")
+                : COMPACT_DAY_SQL.formatted("rain_3h_mm", "snow_3h_mm");
+        Integer compacted = jdbcTemplate.queryForObject(sql, Integer.class,
+                date, sourceType.name(), targetType.name(), targetType.name());
+        return compacted != null ? compacted : 0;
+    }
+    
+    @Override
+    @Transactional
+    public int createPartitions(LocalDate from, LocalDate to) {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT count(*) FILTER (WHERE create_weather_data_partition(day::date)) "
+                        + "FROM generate_series(?::date, ?::date, interval '1 day') AS day",
+                Integer.class, from, to);
+        return created != null ? created : 0;
+    }
+    
+    @Override
+    @Transactional
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        Integer dropped = jdbcTemplate.queryForObject(
+                "SELECT drop_weather_data_partitions_before(?)", Integer.class, cutoff);
+        return dropped != null ? dropped : 0;
+    }
+    
+    @Override
+    public Map<String, Long> findPartitionRowEstimates() {
+        Map<String, Long> partitions = new LinkedHashMap<>();
+        // reltuples is -1 until the partition has been analyzed
+        jdbcTemplate.query(PARTITION_ROW_ESTIMATES_SQL, (RowCallbackHandler) rs ->
+                partitions.put(rs.getString("relname"), Math.max(rs.getLong("estimated_rows"), 0L)));
+        return partitions;
+    }
+    
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            ps.setObject(index, value, sqlType);
+        }
+    }
+}
\ No newline at end of file
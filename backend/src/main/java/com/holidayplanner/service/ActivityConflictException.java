@@ -0,0 +1,20 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.cache.ActivityIntervalTree;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when an activity would overlap other activities of the same plan and day.
+ */
+@Getter
+public class ActivityConflictException extends RuntimeException {
+    
+    private final List<ActivityIntervalTree.Interval> conflicts;
+    
+    public ActivityConflictException(List<ActivityIntervalTree.Interval> conflicts) {
+        super("Activity overlaps " + conflicts.size() + " other activities on the same day");
+        this.conflicts = conflicts;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,10 @@
 package com.holidayplanner.service;
 
+import com.holidayplanner.cache.ActivityIntervalIndex;
+import com.holidayplanner.cache.ActivityIntervalTree;
+import com.holidayplanner.cache.HourlyComfortGrid;
+import com.holidayplanner.cache.LlmResponseCache;
+import com.holidayplanner.cache.PlanStatisticsCache;
 import com.holidayplanner.model.Activity;
 import com.holidayplanner.model.HolidayPlan;
 import com.holidayplanner.model.WeatherData;
@@ -9,13 +14,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,9 +41,33 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ActivityOptimizationService {
     
+    // Shared instructions for the optimization prompts; sent once per prompt, which covers one or more days
+    private static final String OPTIMIZATION_PROMPT_INSTRUCTIONS = """
+            You are an expert travel planner specializing in weather-based activity optimization for Italy.
+            
+            Reschedule the activities below for the best weather. Each day lists its numbered activities and a
+            compact hourly forecast formatted as: hour, temperature in Celsius, humidity, rain or dry, outdoor score (0-100).
+            Prefer high outdoor scores for outdoor activities and move indoor activities into hot, humid or rainy hours.
+            
+            Respond with JSON only, no prose, using exactly this shape:
+            {"days":[{"date":"YYYY-MM-DD","activities":[{"id":1,"timeSlot":"MORNING|AFTERNOON|EVENING","startTime":"HH:mm","endTime":"HH:mm","reason":"short reason"}]}]}
+            Use the activity number as the id and include every activity exactly once.""";
+    
+    // Estimated response size: one JSON entry with a short reason per activity, plus the date wrapper per day
+    private static final int RESPONSE_TOKENS_PER_ACTIVITY = 40;
+    private static final int RESPONSE_TOKENS_PER_DAY = 10;
+    
     private final ActivityRepository activityRepository;
     private final WeatherService weatherService;
     private final ChatClient chatClient;
+    private final AiSuggestionParser aiSuggestionParser;
+    private final LlmResponseCache llmResponseCache;
+    private final PlanStatisticsCache planStatisticsCache;
+    private final ActivityIntervalIndex activityIntervalIndex;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Qualifier("optimizationExecutor")
+    private final ThreadPoolTaskExecutor optimizationExecutor;
     
     @Value("${ai.agent.activity-optimization.indoor-temp-threshold:28}")
     private double indoorTempThreshold;
@@ -36,52 +78,98 @@ public class ActivityOptimizationService {
     @Value("${ai.agent.activity-optimization.comfort-humidity-max:70}")
     private int comfortHumidityMax;
     
-    @Transactional
+    @Value("${ai.agent.activity-optimization.parallelism:4}")
+    private int optimizationParallelism;
+    
+    @Value("${ai.agent.activity-optimization.weather-timeout-seconds:15}")
+    private long weatherTimeoutSeconds;
+    
+    @Value("${ai.agent.activity-optimization.ai-timeout-seconds:45}")
+    private long aiTimeoutSeconds;
+    
+    @Value("${ai.agent.activity-optimization.batch-prompt.enabled:true}")
+    private boolean batchPromptEnabled;
+    
+    @Value("${ai.agent.activity-optimization.batch-prompt.context-window-tokens:128000}")
+    private int contextWindowTokens;
+    
+    @Value("${ai.agent.activity-optimization.batch-prompt.max-output-tokens:4096}")
+    private int maxOutputTokens;
+    
     public List<Activity> optimizeActivitiesForWeather(HolidayPlan holidayPlan) {
+        return optimizeActivitiesForWeather(holidayPlan, OptimizationProgressListener.NONE);
+    }
+    
+    // Not transactional: the weather and AI stages can take a while and must not hold a database connection.
+    // Activities are read up front and written back in one short transaction at the end.
+    public List<Activity> optimizeActivitiesForWeather(HolidayPlan holidayPlan, OptimizationProgressListener progressListener) {
         log.info("Starting activity optimization for holiday plan: {}", holidayPlan.getId());
+        long startedAt = System.nanoTime();
         
         List<Activity> activities = activityRepository.findByHolidayPlanIdOrderByDateAscStartTimeAsc(holidayPlan.getId());
         List<Activity> optimizedActivities = new ArrayList<>();
         
-        // Group activities by date
+        // Group activities by date; the sorted map keeps the merged result deterministic
         Map<LocalDate, List<Activity>> activitiesByDate = activities.stream()
-                .collect(Collectors.groupingBy(Activity::getDate));
-        
+                .collect(Collectors.groupingBy(Activity::getDate, TreeMap::new, Collectors.toList()));
+        
+        // Stage 1: look up the weather for all days concurrently without holding a thread per upstream call
+        AtomicInteger weatherDaysDone = new AtomicInteger();
+        Map<LocalDate, List<WeatherData>> weatherByDate = Flux.fromIterable(activitiesByDate.keySet())
+                .flatMap(date -> weatherService.getWeatherForDateRangeReactive(holidayPlan.getDestination(), "IT", date, date)
+                        .timeout(Duration.ofSeconds(weatherTimeoutSeconds))
+                        .onErrorResume(e -> {
+                            log.warn("Weather lookup for {} failed or timed out: {}", date, e.getMessage());
+                            return Mono.just(List.of());
+                        })
+                        .doOnNext(weatherData -> progressListener.onDayCompleted("weather", date,
+                                weatherDaysDone.incrementAndGet(), activitiesByDate.size()))
+                        .map(weatherData -> Map.entry(date, weatherData)), optimizationParallelism)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+        
+        // Stage 2: rule-based timing per day for every day that has a forecast
+        Map<LocalDate, List<WeatherData>> forecastDays = new TreeMap<>();
         for (Map.Entry<LocalDate, List<Activity>> entry : activitiesByDate.entrySet()) {
-            LocalDate date = entry.getKey();
-            List<Activity> dailyActivities = entry.getValue();
-            
-            // Get weather data for the date
-            List<WeatherData> weatherData = weatherService.getWeatherForDateRange(
-                    holidayPlan.getDestination(), "IT", date, date);
+            List<WeatherData> weatherData = weatherByDate.getOrDefault(entry.getKey(), List.of());
             
             if (!weatherData.isEmpty()) {
-                List<Activity> optimizedDailyActivities = optimizeDailyActivities(dailyActivities, weatherData);
-                optimizedActivities.addAll(optimizedDailyActivities);
+                // The grid is normally built when the forecast was cached; rebuild it only on a cache miss
+                HourlyComfortGrid comfortGrid = weatherService.getComfortGrid(holidayPlan.getDestination(), "IT", entry.getKey());
+                if (comfortGrid == null) {
+                    comfortGrid = HourlyComfortGrid.from(weatherData);
+                }
+                applyWeatherBasedTiming(entry.getValue(), comfortGrid);
+                forecastDays.put(entry.getKey(), weatherData);
             } else {
-                log.warn("No weather data available for date: {}", date);
-                optimizedActivities.addAll(dailyActivities);
+                log.warn("No weather data available for date: {}", entry.getKey());
             }
         }
         
-        // Save optimized activities
-        optimizedActivities.forEach(activity -> {
-            activity.setAiOptimized(true);
-            activityRepository.save(activity);
+        // Stage 3: structured AI suggestions, merged back in date order
+        Map<Long, AiActivitySuggestion> suggestions = requestAISuggestions(activitiesByDate, forecastDays, progressListener);
+        activitiesByDate.forEach((date, dailyActivities) -> {
+            if (forecastDays.containsKey(date)) {
+                applyStructuredAISuggestions(dailyActivities, suggestions);
+            }
+            optimizedActivities.addAll(dailyActivities);
+        });
+        
+        // Save optimized activities in one batch; the caches drop the plan once it commits
+        optimizedActivities.forEach(activity -> activity.setAiOptimized(true));
+        List<Activity> savedActivities = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Activity> saved = activityRepository.saveAll(optimizedActivities);
+            planStatisticsCache.invalidate(holidayPlan.getId());
+            activityIntervalIndex.invalidate(holidayPlan.getId());
+            return saved;
         });
         
-        log.info("Completed activity optimization for {} activities", optimizedActivities.size());
-        return optimizedActivities;
+        log.info("Completed activity optimization for {} activities over {} days in {} ms",
+                savedActivities.size(), activitiesByDate.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        return savedActivities;
     }
     
-    private List<Activity> optimizeDailyActivities(List<Activity> activities, List<WeatherData> weatherData) {
-        List<Activity> optimizedActivities = new ArrayList<>(activities);
-        
-        // Get hourly weather data
-        Map<Integer, WeatherData> hourlyWeather = weatherData.stream()
-                .filter(wd -> wd.getForecastHour() != null)
-                .collect(Collectors.toMap(WeatherData::getForecastHour, wd -> wd));
-        
+    private void applyWeatherBasedTiming(List<Activity> activities, HourlyComfortGrid comfortGrid) {
         // Separate indoor and outdoor activities
         List<Activity> indoorActivities = activities.stream()
                 .filter(this::isIndoorActivity)
@@ -91,27 +179,19 @@ public class ActivityOptimizationService {
                 .filter(this::isOutdoorActivity)
                 .collect(Collectors.toList());
         
-        // Optimize timing based on weather
-        optimizeOutdoorActivities(outdoorActivities, hourlyWeather);
-        optimizeIndoorActivities(indoorActivities, hourlyWeather);
-        
-        // Use AI to suggest additional optimizations
-        String aiOptimizationSuggestions = generateAIOptimizationSuggestions(activities, weatherData);
-        log.info("AI optimization suggestions: {}", aiOptimizationSuggestions);
-        
-        // Apply AI suggestions
-        applyAIOptimizationSuggestions(optimizedActivities, aiOptimizationSuggestions);
-        
-        return optimizedActivities;
+        // Optimize timing based on weather; moves only go to slots no other activity of the day occupies
+        ActivityIntervalTree dayIntervals = buildDayIntervals(activities);
+        optimizeOutdoorActivities(outdoorActivities, comfortGrid, dayIntervals);
+        optimizeIndoorActivities(indoorActivities, comfortGrid, dayIntervals);
     }
     
-    private void optimizeOutdoorActivities(List<Activity> outdoorActivities, Map<Integer, WeatherData> hourlyWeather) {
+    private void optimizeOutdoorActivities(List<Activity> outdoorActivities, HourlyComfortGrid comfortGrid,
+                                           ActivityIntervalTree dayIntervals) {
         for (Activity activity : outdoorActivities) {
-            OptimalTimeSlot optimalSlot = findOptimalTimeSlotForOutdoorActivity(activity, hourlyWeather);
+            OptimalTimeSlot optimalSlot = findOptimalTimeSlotForOutdoorActivity(activity, comfortGrid, dayIntervals);
             
             if (optimalSlot != null) {
-                activity.setStartTime(optimalSlot.startTime);
-                activity.setEndTime(optimalSlot.endTime);
+                reschedule(activity, optimalSlot.startTime, optimalSlot.endTime, dayIntervals);
                 activity.setTimeSlot(optimalSlot.timeSlot);
                 activity.setOptimizationReason(optimalSlot.reason);
                 
@@ -121,13 +201,13 @@ public class ActivityOptimizationService {
         }
     }
     
-    private void optimizeIndoorActivities(List<Activity> indoorActivities, Map<Integer, WeatherData> hourlyWeather) {
+    private void optimizeIndoorActivities(List<Activity> indoorActivities, HourlyComfortGrid comfortGrid,
+                                          ActivityIntervalTree dayIntervals) {
         for (Activity activity : indoorActivities) {
-            OptimalTimeSlot optimalSlot = findOptimalTimeSlotForIndoorActivity(activity, hourlyWeather);
+            OptimalTimeSlot optimalSlot = findOptimalTimeSlotForIndoorActivity(activity, comfortGrid, dayIntervals);
             
             if (optimalSlot != null) {
-                activity.setStartTime(optimalSlot.startTime);
-                activity.setEndTime(optimalSlot.endTime);
+                reschedule(activity, optimalSlot.startTime, optimalSlot.endTime, dayIntervals);
                 activity.setTimeSlot(optimalSlot.timeSlot);
                 activity.setOptimizationReason(optimalSlot.reason);
                 
@@ -137,27 +217,27 @@ public class ActivityOptimizationService {
         }
     }
     
-    private OptimalTimeSlot findOptimalTimeSlotForOutdoorActivity(Activity activity, Map<Integer, WeatherData> hourlyWeather) {
+    private OptimalTimeSlot findOptimalTimeSlotForOutdoorActivity(Activity activity, HourlyComfortGrid comfortGrid,
+                                                                  ActivityIntervalTree dayIntervals) {
         List<TimeSlotScore> scores = new ArrayList<>();
         
         // Morning slot (8-12)
-        TimeSlotScore morningScore = calculateTimeSlotScore(8, 12, hourlyWeather, true);
+        TimeSlotScore morningScore = calculateTimeSlotScore(8, 12, comfortGrid, true);
         morningScore.timeSlot = Activity.TimeSlot.MORNING;
         scores.add(morningScore);
         
         // Afternoon slot (12-17)
-        TimeSlotScore afternoonScore = calculateTimeSlotScore(12, 17, hourlyWeather, true);
+        TimeSlotScore afternoonScore = calculateTimeSlotScore(12, 17, comfortGrid, true);
         afternoonScore.timeSlot = Activity.TimeSlot.AFTERNOON;
         scores.add(afternoonScore);
         
         // Evening slot (17-20)
-        TimeSlotScore eveningScore = calculateTimeSlotScore(17, 20, hourlyWeather, true);
+        TimeSlotScore eveningScore = calculateTimeSlotScore(17, 20, comfortGrid, true);
         eveningScore.timeSlot = Activity.TimeSlot.EVENING;
         scores.add(eveningScore);
         
-        // Find the best slot
-        Optional<TimeSlotScore> bestSlot = scores.stream()
-                .max(Comparator.comparing(s -> s.score));
+        // Find the best slot that is still free
+        Optional<TimeSlotScore> bestSlot = bestFreeSlot(activity, scores, dayIntervals);
         
         if (bestSlot.isPresent() && bestSlot.get().score > 50) {
             TimeSlotScore best = bestSlot.get();
@@ -172,27 +252,27 @@ public class ActivityOptimizationService {
         return null;
     }
     
-    private OptimalTimeSlot findOptimalTimeSlotForIndoorActivity(Activity activity, Map<Integer, WeatherData> hourlyWeather) {
+    private OptimalTimeSlot findOptimalTimeSlotForIndoorActivity(Activity activity, HourlyComfortGrid comfortGrid,
+                                                                 ActivityIntervalTree dayIntervals) {
         List<TimeSlotScore> scores = new ArrayList<>();
         
         // Morning slot (8-12)
-        TimeSlotScore morningScore = calculateTimeSlotScore(8, 12, hourlyWeather, false);
+        TimeSlotScore morningScore = calculateTimeSlotScore(8, 12, comfortGrid, false);
         morningScore.timeSlot = Activity.TimeSlot.MORNING;
         scores.add(morningScore);
         
         // Afternoon slot (12-17)
-        TimeSlotScore afternoonScore = calculateTimeSlotScore(12, 17, hourlyWeather, false);
+        TimeSlotScore afternoonScore = calculateTimeSlotScore(12, 17, comfortGrid, false);
         afternoonScore.timeSlot = Activity.TimeSlot.AFTERNOON;
         scores.add(afternoonScore);
         
         // Evening slot (17-20)
-        TimeSlotScore eveningScore = calculateTimeSlotScore(17, 20, hourlyWeather, false);
+        TimeSlotScore eveningScore = calculateTimeSlotScore(17, 20, comfortGrid, false);
         eveningScore.timeSlot = Activity.TimeSlot.EVENING;
         scores.add(eveningScore);
         
-        // Find the best slot (for indoor activities, we prefer times when outdoor conditions are poor)
-        Optional<TimeSlotScore> bestSlot = scores.stream()
-                .max(Comparator.comparing(s -> s.score));
+        // Find the best free slot (for indoor activities, we prefer times when outdoor conditions are poor)
+        Optional<TimeSlotScore> bestSlot = bestFreeSlot(activity, scores, dayIntervals);
         
         if (bestSlot.isPresent() && bestSlot.get().score > 50) {
             TimeSlotScore best = bestSlot.get();
@@ -207,106 +287,237 @@ public class ActivityOptimizationService {
         return null;
     }
     
-    private TimeSlotScore calculateTimeSlotScore(int startHour, int endHour, Map<Integer, WeatherData> hourlyWeather, boolean isOutdoor) {
+    private Optional<TimeSlotScore> bestFreeSlot(Activity activity, List<TimeSlotScore> scores, ActivityIntervalTree dayIntervals) {
+        return scores.stream()
+                .filter(slot -> dayIntervals.findOverlapping(LocalTime.of(slot.startHour, 0), LocalTime.of(slot.endHour, 0),
+                        activity.getId()).isEmpty())
+                .max(Comparator.comparing(s -> s.score));
+    }
+    
+    private static ActivityIntervalTree buildDayIntervals(List<Activity> activities) {
+        ActivityIntervalTree dayIntervals = new ActivityIntervalTree();
+        for (Activity activity : activities) {
+            ActivityIntervalTree.Interval interval = ActivityIntervalTree.Interval.of(activity);
+            if (interval != null) {
+                dayIntervals.insert(interval);
+            }
+        }
+        return dayIntervals;
+    }
+    
+    // Moves the activity and keeps the day's interval tree in step with it
+    private static void reschedule(Activity activity, LocalTime startTime, LocalTime endTime, ActivityIntervalTree dayIntervals) {
+        ActivityIntervalTree.Interval previous = ActivityIntervalTree.Interval.of(activity);
+        if (previous != null) {
+            dayIntervals.remove(previous);
+        }
+        activity.setStartTime(startTime);
+        activity.setEndTime(endTime);
+        dayIntervals.insert(ActivityIntervalTree.Interval.of(activity));
+    }
+    
+    private TimeSlotScore calculateTimeSlotScore(int startHour, int endHour, HourlyComfortGrid comfortGrid, boolean isOutdoor) {
         TimeSlotScore score = new TimeSlotScore();
         score.startHour = startHour;
         score.endHour = endHour;
-        score.score = 0;
-        
-        double totalScore = 0;
-        int hourCount = 0;
-        
-        for (int hour = startHour; hour < endHour; hour++) {
-            WeatherData weather = hourlyWeather.get(hour);
-            if (weather != null) {
-                if (isOutdoor) {
-                    totalScore += weather.getOutdoorActivityScore();
-                } else {
-                    totalScore += weather.getIndoorActivityScore();
-                }
-                hourCount++;
-            }
-        }
         
-        if (hourCount > 0) {
-            score.score = totalScore / hourCount;
-        }
+        score.score = isOutdoor
+                ? comfortGrid.averageOutdoorScore(startHour, endHour)
+                : comfortGrid.averageIndoorScore(startHour, endHour);
         
         return score;
     }
     
-    private String generateAIOptimizationSuggestions(List<Activity> activities, List<WeatherData> weatherData) {
-        PromptTemplate promptTemplate = new PromptTemplate("""
-                You are an expert travel planner specializing in weather-based activity optimization for Italy.
-                
-                Given the following activities and weather forecast, provide specific recommendations for optimizing the schedule:
-                
-                Activities:
-                {activities}
-                
-                Weather Forecast:
-                {weather}
-                
-                Please provide:
-                1. Specific time recommendations for each activity
-                2. Any activities that should be rescheduled due to weather
-                3. Alternative indoor activities if weather is poor
-                4. Best times for outdoor activities based on temperature, humidity, and rain
-                5. Any safety considerations
-                
-                Format your response as actionable recommendations with reasons.
-                """);
+    private Map<Long, AiActivitySuggestion> requestAISuggestions(Map<LocalDate, List<Activity>> activitiesByDate,
+                                                                 Map<LocalDate, List<WeatherData>> forecastDays,
+                                                                 OptimizationProgressListener progressListener) {
+        // Render one compact section per day and pack as many days per prompt as the token budget allows;
+        // without batching every day gets its own prompt. Activities are numbered by their position in the prompt
+        // rather than by database id, so plans with the same activities and weather (re-runs, clones) produce the
+        // same prompt and share cached responses.
+        List<List<String>> chunks = new ArrayList<>();
+        List<List<LocalDate>> chunkDates = new ArrayList<>();
+        List<List<Activity>> chunkActivities = new ArrayList<>();
+        List<String> currentChunk = new ArrayList<>();
+        List<LocalDate> currentDates = new ArrayList<>();
+        List<Activity> currentActivities = new ArrayList<>();
+        int currentTokens = estimateTokens(OPTIMIZATION_PROMPT_INSTRUCTIONS);
+        int currentResponseTokens = 0;
+        // Prompt and response share the model's context window, so the prompt gets what the response does not need
+        int maxPromptTokens = contextWindowTokens - maxOutputTokens;
+        
+        for (Map.Entry<LocalDate, List<WeatherData>> entry : forecastDays.entrySet()) {
+            List<Activity> dayActivities = activitiesByDate.get(entry.getKey());
+            String daySection = formatDayForPrompt(entry.getKey(), dayActivities, entry.getValue(), currentActivities.size() + 1);
+            int dayTokens = estimateTokens(daySection);
+            int dayResponseTokens = RESPONSE_TOKENS_PER_DAY + RESPONSE_TOKENS_PER_ACTIVITY * dayActivities.size();
+            
+            if (!currentChunk.isEmpty() && (!batchPromptEnabled || currentTokens + dayTokens > maxPromptTokens
+                    || currentResponseTokens + dayResponseTokens > maxOutputTokens)) {
+                chunks.add(currentChunk);
+                chunkDates.add(currentDates);
+                chunkActivities.add(currentActivities);
+                currentChunk = new ArrayList<>();
+                currentDates = new ArrayList<>();
+                currentActivities = new ArrayList<>();
+                currentTokens = estimateTokens(OPTIMIZATION_PROMPT_INSTRUCTIONS);
+                currentResponseTokens = 0;
+                // Numbering restarts with the new prompt
+                daySection = formatDayForPrompt(entry.getKey(), dayActivities, entry.getValue(), 1);
+            }
+            currentChunk.add(daySection);
+            currentDates.add(entry.getKey());
+            currentActivities.addAll(dayActivities);
+            currentTokens += dayTokens;
+            currentResponseTokens += dayResponseTokens;
+        }
+        if (!currentChunk.isEmpty()) {
+            chunks.add(currentChunk);
+            chunkDates.add(currentDates);
+            chunkActivities.add(currentActivities);
+        }
         
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("activities", formatActivitiesForAI(activities));
-        variables.put("weather", formatWeatherForAI(weatherData));
+        log.info("Requesting AI suggestions for {} days in {} prompt(s)", forecastDays.size(), chunks.size());
         
-        Prompt prompt = promptTemplate.create(variables);
+        List<SuggestionRequest> responses = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Prompt prompt = new Prompt(OPTIMIZATION_PROMPT_INSTRUCTIONS + "\n\n" + String.join("\n\n", chunks.get(i)));
+            responses.add(requestSuggestions(prompt, chunkDates.get(i)));
+        }
         
+        // Map the numbers back to the activities of the prompt they were given in
+        Map<Long, AiActivitySuggestion> suggestions = new HashMap<>();
+        int aiDaysDone = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            List<Activity> promptActivities = chunkActivities.get(i);
+            String response = awaitSuggestions(responses.get(i));
+            // A null response failed, timed out or was rejected: those days keep the rule-based timing from stage 2
+            if (response != null) {
+                aiSuggestionParser.parse(response).forEach((number, suggestion) -> {
+                    if (number >= 1 && number <= promptActivities.size()) {
+                        suggestions.put(promptActivities.get(number.intValue() - 1).getId(), suggestion);
+                    }
+                });
+            }
+            for (LocalDate date : chunkDates.get(i)) {
+                progressListener.onDayCompleted("ai", date, ++aiDaysDone, forecastDays.size());
+            }
+        }
+        return suggestions;
+    }
+    
+    // Returns null when the executor has no room for the call, so the caller keeps the rule-based timing instead
+    // of failing the whole optimization
+    private SuggestionRequest requestSuggestions(Prompt prompt, List<LocalDate> dates) {
+        CompletableFuture<Long> started = new CompletableFuture<>();
         try {
-            return chatClient.call(prompt).getResult().getOutput().getContent();
-        } catch (Exception e) {
-            log.error("Error generating AI optimization suggestions: {}", e.getMessage());
-            return "AI optimization temporarily unavailable.";
+            Future<String> response = optimizationExecutor.submit(() -> {
+                started.complete(System.nanoTime());
+                return callChatClient(prompt, null);
+            });
+            return new SuggestionRequest(dates, started, response);
+        } catch (TaskRejectedException e) {
+            log.warn("AI suggestions for {} skipped, optimization executor is saturated; keeping rule-based timing", dates);
+            return null;
+        }
+    }
+    
+    // Waits for the call for at most the AI timeout, counted from when it started running rather than from when its
+    // prompt was queued. A call that overruns is cancelled, so it does not keep holding an optimize- thread.
+    private String awaitSuggestions(SuggestionRequest request) {
+        if (request == null) {
+            return null;
         }
+        try {
+            long elapsedNanos = System.nanoTime() - request.started().get();
+            return request.response().get(TimeUnit.SECONDS.toNanos(aiTimeoutSeconds) - elapsedNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            request.response().cancel(true);
+            log.warn("AI suggestions for {} timed out after {}s; keeping rule-based timing", request.dates(), aiTimeoutSeconds);
+        } catch (ExecutionException e) {
+            log.warn("AI suggestions for {} failed; keeping rule-based timing", request.dates(), e.getCause());
+        } catch (InterruptedException e) {
+            request.response().cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
     }
     
-    private void applyAIOptimizationSuggestions(List<Activity> activities, String aiSuggestions) {
-        // Parse AI suggestions and apply them
-        // This is a simplified implementation - in production, you'd want more sophisticated parsing
+    private String formatDayForPrompt(LocalDate date, List<Activity> activities, List<WeatherData> weatherData, int firstNumber) {
+        StringBuilder section = new StringBuilder();
+        section.append("Date ").append(date).append('\n');
         
+        section.append("Activities:\n");
+        int number = firstNumber;
         for (Activity activity : activities) {
-            if (aiSuggestions.toLowerCase().contains(activity.getName().toLowerCase())) {
-                if (aiSuggestions.toLowerCase().contains("morning")) {
-                    activity.setTimeSlot(Activity.TimeSlot.MORNING);
-                    activity.setStartTime(LocalTime.of(9, 0));
-                    activity.setEndTime(LocalTime.of(12, 0));
-                } else if (aiSuggestions.toLowerCase().contains("afternoon")) {
-                    activity.setTimeSlot(Activity.TimeSlot.AFTERNOON);
-                    activity.setStartTime(LocalTime.of(14, 0));
-                    activity.setEndTime(LocalTime.of(17, 0));
-                } else if (aiSuggestions.toLowerCase().contains("evening")) {
-                    activity.setTimeSlot(Activity.TimeSlot.EVENING);
-                    activity.setStartTime(LocalTime.of(18, 0));
-                    activity.setEndTime(LocalTime.of(21, 0));
-                }
-                
-                if (activity.getOptimizationReason() == null) {
-                    activity.setOptimizationReason("AI suggested optimization based on weather forecast");
+            section.append(String.format("- id=%d | %s | %s | %s | now %s %s-%s%n",
+                    number++,
+                    activity.getName(),
+                    activity.getType(),
+                    activity.getLocation(),
+                    activity.getTimeSlot(),
+                    activity.getStartTime() != null ? activity.getStartTime() : "?",
+                    activity.getEndTime() != null ? activity.getEndTime() : "?"));
+        }
+        
+        // Compacted forecast: hour temperature/humidity/rain/outdoor score
+        section.append("Weather: ");
+        section.append(weatherData.stream()
+                .filter(wd -> wd.getForecastHour() != null)
+                .map(wd -> String.format("%02dh %.0fC %d%% %s o%.0f",
+                        wd.getForecastHour(),
+                        wd.getTemperatureCelsius() != null ? wd.getTemperatureCelsius() : 0.0,
+                        wd.getHumidityPercent() != null ? wd.getHumidityPercent() : 0,
+                        wd.getRain1hMm() != null && wd.getRain1hMm() > 0 ? "rain" : "dry",
+                        wd.getOutdoorActivityScore() != null ? wd.getOutdoorActivityScore() : 0.0))
+                .collect(Collectors.joining("; ")));
+        return section.toString();
+    }
+    
+    private int estimateTokens(String text) {
+        // Roughly four characters per token for English prompts
+        return (text.length() + 3) / 4;
+    }
+    
+    private void applyStructuredAISuggestions(List<Activity> activities, Map<Long, AiActivitySuggestion> suggestions) {
+        ActivityIntervalTree dayIntervals = buildDayIntervals(activities);
+        for (Activity activity : activities) {
+            AiActivitySuggestion suggestion = suggestions.get(activity.getId());
+            if (suggestion == null) {
+                continue;
+            }
+            
+            if (suggestion.startTime() != null && suggestion.endTime() != null && suggestion.startTime().isBefore(suggestion.endTime())) {
+                // A suggestion that would double-book the day is dropped as a whole
+                List<ActivityIntervalTree.Interval> conflicts = dayIntervals.findOverlapping(
+                        suggestion.startTime(), suggestion.endTime(), activity.getId());
+                if (!conflicts.isEmpty()) {
+                    log.info("Kept '{}' at its current time: suggested {} - {} overlaps '{}'", activity.getName(),
+                            suggestion.startTime(), suggestion.endTime(), conflicts.get(0).name());
+                    continue;
                 }
+                reschedule(activity, suggestion.startTime(), suggestion.endTime(), dayIntervals);
+            }
+            if (suggestion.timeSlot() != null) {
+                activity.setTimeSlot(suggestion.timeSlot());
+            }
+            
+            if (suggestion.reason() != null && !suggestion.reason().isBlank()) {
+                activity.setOptimizationReason("AI: " + suggestion.reason().trim());
+            } else if (activity.getOptimizationReason() == null) {
+                activity.setOptimizationReason("AI suggested optimization based on weather forecast");
             }
         }
     }
     
-    private String formatActivitiesForAI(List<Activity> activities) {
-        return activities.stream()
-                .map(activity -> String.format("- %s (%s) at %s - Type: %s, Time: %s",
-                        activity.getName(),
-                        activity.getDescription() != null ? activity.getDescription() : "No description",
-                        activity.getLocation(),
-                        activity.getType(),
-                        activity.getTimeSlot()))
-                .collect(Collectors.joining("\n"));
+    private String callChatClient(Prompt prompt, String fallback) {
+        try {
+            // Identical prompts (re-runs, cloned plans) are answered from the response cache without calling the model
+            return llmResponseCache.getOrCompute(prompt, () -> chatClient.call(prompt).getResult().getOutput().getContent());
+        } catch (Exception e) {
+            log.error("Error generating AI suggestions: {}", e.getMessage());
+            return fallback;
+        }
     }
     
     private String formatWeatherForAI(List<WeatherData> weatherData) {
@@ -386,12 +597,11 @@ public class ActivityOptimizationService {
         
         Prompt prompt = promptTemplate.create(variables);
         
-        try {
-            return chatClient.call(prompt).getResult().getOutput().getContent();
-        } catch (Exception e) {
-            log.error("Error generating alternative activity suggestions: {}", e.getMessage());
-            return "Alternative activity suggestions temporarily unavailable.";
-        }
+        return callChatClient(prompt, "Alternative activity suggestions temporarily unavailable.");
+    }
+    
+    public Map<String, Object> getAiCacheStatistics() {
+        return llmResponseCache.getStatistics();
     }
     
     private static class TimeSlotScore {
@@ -414,4 +624,8 @@ public class ActivityOptimizationService {
             this.reason = reason;
         }
     }
+    
+    // One prompt handed to the optimization executor; started completes with System.nanoTime() once it runs
+    private record SuggestionRequest(List<LocalDate> dates, CompletableFuture<Long> started, Future<String> response) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.Activity;
+
+import java.time.LocalTime;
+
+// One activity's schedule as returned by the structured (JSON) AI optimization prompts. The number is the
+// activity's position in the prompt, not its database id.
+public record AiActivitySuggestion(Long number,
+                                   Activity.TimeSlot timeSlot,
+                                   LocalTime startTime,
+                                   LocalTime endTime,
+                                   String reason) {
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.holidayplanner.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.holidayplanner.model.Activity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Single-pass streaming parser for the JSON schedules returned by the optimization prompts. Every object inside
+ * an "activities" array is read straight into an {@link AiActivitySuggestion} keyed by the number the prompt gave
+ * the activity, without building a tree of the response.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AiSuggestionParser {
+    
+    private final ObjectMapper objectMapper;
+    
+    public Map<Long, AiActivitySuggestion> parse(String response) {
+        Map<Long, AiActivitySuggestion> suggestions = new HashMap<>();
+        if (response == null) {
+            return suggestions;
+        }
+        
+        // Models sometimes wrap the JSON in prose or code fences
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            log.warn("AI response did not contain a JSON schedule");
+            return suggestions;
+        }
+        
+        try (JsonParser parser = objectMapper.getFactory().createParser(response.substring(start, end + 1))) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME || !"activities".equals(parser.currentName())) {
+                    continue;
+                }
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    AiActivitySuggestion suggestion = readSuggestion(parser);
+                    if (suggestion != null) {
+                        suggestions.put(suggestion.number(), suggestion);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Keep whatever was parsed before the malformed part
+            log.warn("Could not fully parse AI schedule JSON ({} suggestions read): {}", suggestions.size(), e.getMessage());
+        }
+        
+        return suggestions;
+    }
+    
+    private AiActivitySuggestion readSuggestion(JsonParser parser) throws IOException {
+        long number = -1;
+        String timeSlot = null;
+        String startTime = null;
+        String endTime = null;
+        String reason = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> number = parser.getValueAsLong(-1);
+                case "timeSlot" -> timeSlot = parser.getValueAsString();
+                case "startTime" -> startTime = parser.getValueAsString();
+                case "endTime" -> endTime = parser.getValueAsString();
+                case "reason" -> reason = parser.getValueAsString();
+                default -> {
+                    // Unknown field; nested values are skipped below
+                }
+            }
+            parser.skipChildren();
+        }
+        
+        if (number < 0) {
+            return null;
+        }
+        return new AiActivitySuggestion(number, parseTimeSlot(timeSlot), parseTime(startTime), parseTime(endTime), reason);
+    }
+    
+    private Activity.TimeSlot parseTimeSlot(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Activity.TimeSlot.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private LocalTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
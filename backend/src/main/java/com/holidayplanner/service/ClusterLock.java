@@ -0,0 +1,54 @@
+package com.holidayplanner.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps scheduled jobs that every instance triggers from running on more than one instance at a time. Uses a
+ * PostgreSQL session-level advisory lock held on one pooled connection for the duration of the task, so the lock
+ * is released with the connection if the instance dies mid-run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterLock {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Runs {@code task} while holding the advisory lock named {@code name} and returns its result, or returns
+     * {@code null} without running it if another session holds the lock.
+     */
+    public <T> T runExclusively(String name, Supplier<T> task) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            if (!lockFunction(connection, "pg_try_advisory_lock", name)) {
+                return null;
+            }
+            try {
+                return task.get();
+            } finally {
+                if (!lockFunction(connection, "pg_advisory_unlock", name)) {
+                    log.warn("Advisory lock {} was not held when releasing it", name);
+                }
+            }
+        });
+    }
+    
+    private static boolean lockFunction(Connection connection, String function, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(hashtext(?))")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
\ No newline at end of file
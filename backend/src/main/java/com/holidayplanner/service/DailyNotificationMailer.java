@@ -0,0 +1,193 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.EmailOutboxMessage;
+import com.holidayplanner.model.HolidayPlan;
+import com.holidayplanner.repository.ActivityRepository;
+import com.holidayplanner.repository.HolidayPlanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Morning mass mailing on {@code scheduler.email-notifications.cron}: today's itinerary for every trip in progress
+ * and a countdown reminder for trips starting in one of the configured number of days. Plans are read in keyset
+ * pages, each page's activities come from a single grouped query, emails are rendered on a bounded pool and the
+ * page is queued in the outbox with one batched insert. Deduplication keys make re-runs on the same day harmless,
+ * and only one instance runs at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailyNotificationMailer {
+    
+    private final HolidayPlanRepository holidayPlanRepository;
+    private final ActivityRepository activityRepository;
+    private final EmailService emailService;
+    private final ClusterLock clusterLock;
+    
+    @Qualifier("notificationRenderExecutor")
+    private final ThreadPoolTaskExecutor notificationRenderExecutor;
+    
+    @Value("${scheduler.email-notifications.page-size:500}")
+    private int pageSize;
+    
+    @Value("${scheduler.email-notifications.reminder-days:14,7,1}")
+    private List<Integer> reminderDays;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastRun = Map.of();
+    
+    @Scheduled(cron = "${scheduler.email-notifications.cron}")
+    public void scheduledRun() {
+        run(LocalDate.now());
+    }
+    
+    /**
+     * Queues the itinerary and reminder emails for the given day and returns the run summary, or {@code null} if a
+     * run is already in progress on this or another instance.
+     */
+    public Map<String, Object> run(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Daily notification mailer already running, skipping run for {}", date);
+            return null;
+        }
+        try {
+            // The cron fires on every instance; deduplication keys would drop the second run's emails anyway, but
+            // only after rendering them all
+            Map<String, Object> run = clusterLock.runExclusively("daily-notifications", () -> queueAll(date));
+            if (run == null) {
+                log.info("Daily notification mailer running on another instance, skipping run for {}", date);
+            }
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    public Map<String, Object> getLastRun() {
+        Map<String, Object> stats = new LinkedHashMap<>(lastRun);
+        stats.put("running", running.get());
+        return stats;
+    }
+    
+    private Map<String, Object> queueAll(LocalDate date) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        
+        RunCounters itineraries = queueDailyItineraries(date);
+        long itineraryMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        RunCounters reminders = queueReminders(date);
+        long totalMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("date", date);
+        run.put("startedAt", startedAt);
+        run.put("itineraryPlans", itineraries.plans);
+        run.put("itinerariesQueued", itineraries.queued);
+        run.put("itineraryMillis", itineraryMillis);
+        run.put("reminderPlans", reminders.plans);
+        run.put("remindersQueued", reminders.queued);
+        run.put("reminderMillis", totalMillis - itineraryMillis);
+        run.put("pages", itineraries.pages + reminders.pages);
+        run.put("totalMillis", totalMillis);
+        run.put("plansPerSecond", totalMillis > 0 ? (itineraries.plans + reminders.plans) * 1000.0 / totalMillis : 0.0);
+        lastRun = run;
+        
+        log.info("Daily notifications for {} queued {} itineraries and {} reminders in {} ms",
+                date, itineraries.queued, reminders.queued, totalMillis);
+        return run;
+    }
+    
+    private RunCounters queueDailyItineraries(LocalDate date) {
+        return forEachPage(
+                afterId -> holidayPlanRepository.findPlansInProgressAfter(date, HolidayPlan.PlanStatus.CANCELLED,
+                        afterId, PageRequest.of(0, pageSize)),
+                page -> {
+                    Map<Long, List<Activity>> activitiesByPlan = activityRepository
+                            .findByHolidayPlanIdsAndDate(page.stream().map(HolidayPlan::getId).toList(), date).stream()
+                            .collect(Collectors.groupingBy(activity -> activity.getHolidayPlan().getId()));
+                    
+                    // Plans with nothing scheduled today get no itinerary email
+                    return renderInParallel(page.stream().filter(plan -> activitiesByPlan.containsKey(plan.getId())).toList(),
+                            plan -> withKey(emailService.renderDailyItineraryEmail(plan.getUserEmail(), plan, date,
+                                    activitiesByPlan.get(plan.getId())), "daily-itinerary:" + plan.getId() + ":" + date));
+                });
+    }
+    
+    private RunCounters queueReminders(LocalDate date) {
+        List<LocalDate> startDates = reminderDays.stream().map(date::plusDays).toList();
+        return forEachPage(
+                afterId -> holidayPlanRepository.findPlansStartingOnAfter(startDates, HolidayPlan.PlanStatus.CANCELLED,
+                        afterId, PageRequest.of(0, pageSize)),
+                page -> renderInParallel(page, plan -> {
+                    int daysUntilTrip = (int) (plan.getStartDate().toEpochDay() - date.toEpochDay());
+                    return withKey(emailService.renderHolidayReminderEmail(plan.getUserEmail(), plan, daysUntilTrip),
+                            "holiday-reminder:" + plan.getId() + ":" + plan.getStartDate() + ":" + daysUntilTrip);
+                }));
+    }
+    
+    private RunCounters forEachPage(Function<Long, List<HolidayPlan>> pageLoader,
+                                    Function<List<HolidayPlan>, List<EmailOutboxMessage>> renderer) {
+        RunCounters counters = new RunCounters();
+        long afterId = 0L;
+        while (true) {
+            List<HolidayPlan> loaded = pageLoader.apply(afterId);
+            if (loaded.isEmpty()) {
+                break;
+            }
+            
+            List<HolidayPlan> page = loaded.stream()
+                    .filter(plan -> plan.getUserEmail() != null && !plan.getUserEmail().isBlank())
+                    .toList();
+            counters.pages++;
+            counters.plans += page.size();
+            counters.queued += emailService.enqueueAll(renderer.apply(page));
+            
+            afterId = loaded.get(loaded.size() - 1).getId();
+            if (loaded.size() < pageSize) {
+                break;
+            }
+        }
+        return counters;
+    }
+    
+    private List<EmailOutboxMessage> renderInParallel(List<HolidayPlan> plans, Function<HolidayPlan, EmailOutboxMessage> render) {
+        List<CompletableFuture<EmailOutboxMessage>> futures = plans.stream()
+                .map(plan -> CompletableFuture.supplyAsync(() -> render.apply(plan), notificationRenderExecutor)
+                        .exceptionally(e -> {
+                            log.warn("Could not render notification for holiday plan {}: {}", plan.getId(), e.getMessage());
+                            return null;
+                        }))
+                .toList();
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private static EmailOutboxMessage withKey(EmailOutboxMessage message, String deduplicationKey) {
+        message.setDeduplicationKey(deduplicationKey);
+        return message;
+    }
+    
+    private static class RunCounters {
+        int pages;
+        int plans;
+        int queued;
+    }
+}
\ No newline at end of file
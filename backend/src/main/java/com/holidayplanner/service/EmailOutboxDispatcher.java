@@ -0,0 +1,244 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.EmailOutboxMessage;
+import com.holidayplanner.repository.EmailOutboxRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers queued outbox emails in the background. A batch is claimed in a short transaction that marks it SENDING
+ * under a lease ({@code FOR UPDATE SKIP LOCKED}, so several instances can drain the queue without sending a message
+ * twice), handed to the mail sender outside any transaction in a single call so one SMTP connection carries the
+ * whole batch, and its outcome recorded in a second short transaction. No row lock or database connection is held
+ * while the SMTP server is talking. A batch whose lease runs out before its outcome is recorded is claimed again.
+ * Failed messages are retried with exponential backoff until {@code email.outbox.max-attempts} is reached; a lapsed
+ * lease counts as an attempt. Delivered and given-up messages are purged after {@code email.outbox.retention-days}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+    
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+    
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${email.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    
+    @Value("${email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+    
+    @Value("${email.outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+    
+    @Value("${email.outbox.max-backoff-minutes:60}")
+    private long maxBackoffMinutes;
+    
+    @Value("${email.outbox.retention-days:7}")
+    private int retentionDays;
+    
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong retriedMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    
+    private volatile LocalDateTime lastRunAt;
+    private volatile int lastRunMessages;
+    private volatile long lastRunMillis;
+    
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:5000}")
+    public void dispatchPendingMessages() {
+        long start = System.nanoTime();
+        
+        int abandoned = emailOutboxRepository.failExpiredClaims(LocalDateTime.now(), maxAttempts);
+        if (abandoned > 0) {
+            failedMessages.addAndGet(abandoned);
+            log.error("Giving up on {} outbox emails whose last allowed attempt lost its lease", abandoned);
+        }
+        
+        int processed = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int claimed = dispatchBatch();
+            if (claimed == 0) {
+                break;
+            }
+            processed += claimed;
+            if (claimed < batchSize) {
+                break;
+            }
+        }
+        
+        if (processed > 0) {
+            lastRunAt = LocalDateTime.now();
+            lastRunMessages = processed;
+            lastRunMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            log.info("Email outbox dispatched {} messages in {} ms", processed, lastRunMillis);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${email.outbox.purge-interval-ms:3600000}")
+    public void purgeFinishedMessages() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int purged = emailOutboxRepository.deleteSentBefore(cutoff);
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox emails", purged);
+        }
+        int purgedFailed = emailOutboxRepository.deleteFailedBefore(cutoff);
+        if (purgedFailed > 0) {
+            log.info("Purged {} undeliverable outbox emails", purgedFailed);
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        LocalDateTime oldestPending = emailOutboxRepository.findOldestPendingCreatedDate();
+        long runMillis = lastRunMillis;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", emailOutboxRepository.countByStatus(EmailOutboxMessage.OutboxStatus.PENDING));
+        stats.put("sending", emailOutboxRepository.countByStatus(EmailOutboxMessage.OutboxStatus.SENDING));
+        stats.put("failed", emailOutboxRepository.countByStatus(EmailOutboxMessage.OutboxStatus.FAILED));
+        stats.put("oldestPendingAgeSeconds",
+                oldestPending != null ? Duration.between(oldestPending, LocalDateTime.now()).toSeconds() : 0);
+        stats.put("sentSinceStartup", sentMessages.get());
+        stats.put("retriesSinceStartup", retriedMessages.get());
+        stats.put("failuresSinceStartup", failedMessages.get());
+        stats.put("batchesSinceStartup", batches.get());
+        stats.put("batchSize", batchSize);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMessages", lastRunMessages);
+        stats.put("lastRunMillis", runMillis);
+        stats.put("lastRunMessagesPerSecond", runMillis > 0 ? lastRunMessages * 1000.0 / runMillis : 0.0);
+        return stats;
+    }
+    
+    private int dispatchBatch() {
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime claimedAt = LocalDateTime.now();
+        List<EmailOutboxMessage> claimed = emailOutboxRepository.claimDueMessages(
+                claimedAt, claimToken, claimedAt.plusSeconds(leaseSeconds), batchSize, maxAttempts);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        batches.incrementAndGet();
+        
+        Map<EmailOutboxMessage, Exception> failed = new LinkedHashMap<>();
+        Map<MimeMessage, EmailOutboxMessage> outgoing = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : claimed) {
+            try {
+                outgoing.put(toMimeMessage(message), message);
+            } catch (MessagingException e) {
+                failed.put(message, e);
+            }
+        }
+        
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        if (!outgoing.isEmpty()) {
+            try {
+                mailSender.send(outgoing.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+                batchFailure = failures.isEmpty() ? e : null;
+            } catch (MailException e) {
+                // Connection or authentication problems fail the whole batch
+                batchFailure = e;
+            }
+        }
+        
+        List<Long> sentIds = new ArrayList<>();
+        for (Map.Entry<MimeMessage, EmailOutboxMessage> entry : outgoing.entrySet()) {
+            Exception failure = batchFailure != null ? batchFailure : failures.get(entry.getKey());
+            if (failure != null) {
+                failed.put(entry.getValue(), failure);
+            } else {
+                sentIds.add(entry.getValue().getId());
+            }
+        }
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                int recorded = emailOutboxRepository.markSent(sentIds, claimToken, LocalDateTime.now());
+                sentMessages.addAndGet(recorded);
+                if (recorded < sentIds.size()) {
+                    log.warn("Lease on {} sent outbox emails expired before delivery was recorded; they may be sent again",
+                            sentIds.size() - recorded);
+                }
+            }
+            failed.forEach((message, failure) -> recordFailure(message, failure, claimToken));
+        });
+        return claimed.size();
+    }
+    
+    private MimeMessage toMimeMessage(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getHtmlBody(), true);
+        return mimeMessage;
+    }
+    
+    private void recordFailure(EmailOutboxMessage message, Exception failure, String claimToken) {
+        int attempts = message.getAttempts() + 1;
+        boolean givingUp = attempts >= maxAttempts;
+        // A given-up message keeps the time it was given up, which is what the purge measures retention from
+        LocalDateTime nextAttemptAt = givingUp ? LocalDateTime.now() : LocalDateTime.now().plus(backoff(attempts));
+        EmailOutboxMessage.OutboxStatus status = givingUp
+                ? EmailOutboxMessage.OutboxStatus.FAILED
+                : EmailOutboxMessage.OutboxStatus.PENDING;
+        
+        if (emailOutboxRepository.markAttemptFailed(message.getId(), claimToken, status.name(), attempts,
+                nextAttemptAt, failure.getMessage()) == 0) {
+            return;
+        }
+        
+        if (givingUp) {
+            failedMessages.incrementAndGet();
+            log.error("Giving up on {} email {} to {} after {} attempts: {}",
+                    message.getMessageType(), message.getId(), message.getRecipient(), attempts, failure.getMessage());
+        } else {
+            retriedMessages.incrementAndGet();
+            log.warn("Sending {} email {} to {} failed (attempt {}), will retry: {}",
+                    message.getMessageType(), message.getId(), message.getRecipient(), attempts, failure.getMessage());
+        }
+    }
+    
+    private Duration backoff(int attempts) {
+        Duration max = Duration.ofMinutes(maxBackoffMinutes);
+        // Capping the shift keeps the multiplication from overflowing for large attempt limits
+        Duration delay = Duration.ofSeconds(initialBackoffSeconds).multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(max) > 0 ? max : delay;
+    }
+}
\ No newline at end of file
@@ -1,127 +1,86 @@
 package com.holidayplanner.service;
 
 import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.EmailOutboxMessage;
 import com.holidayplanner.model.HolidayPlan;
+import com.holidayplanner.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
 
+/**
+ * Renders notification emails and writes them to the outbox table. Rows join the caller's transaction, so an
+ * email is only queued if the change that triggered it commits; {@link EmailOutboxDispatcher} delivers them.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
     private final TemplateEngine templateEngine;
     
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-    
     @Value("${email.template.base-url}")
     private String baseUrl;
     
     @Value("${email.template.logo-url}")
     private String logoUrl;
     
+    @Transactional
     public void sendHolidayPlanOptimizationEmail(String recipientEmail, HolidayPlan holidayPlan, List<Activity> optimizedActivities) {
-        try {
-            Context context = createHolidayOptimizationContext(holidayPlan, optimizedActivities);
-            String htmlContent = templateEngine.process("holiday-optimization-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(recipientEmail);
-            helper.setSubject("🌟 Your Holiday Plan Has Been Optimized! - " + holidayPlan.getTitle());
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Holiday optimization email sent to: {}", recipientEmail);
-            
-        } catch (MessagingException e) {
-            log.error("Error sending holiday optimization email to {}: {}", recipientEmail, e.getMessage());
-            throw new RuntimeException("Failed to send optimization email", e);
-        }
+        Context context = createHolidayOptimizationContext(holidayPlan, optimizedActivities);
+        enqueue(recipientEmail, "holiday-optimization-email", "🌟 Your Holiday Plan Has Been Optimized! - " + holidayPlan.getTitle(), context);
+        log.info("Holiday optimization email queued for: {}", recipientEmail);
     }
     
+    @Transactional
     public void sendWeatherAlertEmail(String recipientEmail, HolidayPlan holidayPlan, List<Activity> affectedActivities, String weatherAlert) {
-        try {
-            Context context = createWeatherAlertContext(holidayPlan, affectedActivities, weatherAlert);
-            String htmlContent = templateEngine.process("weather-alert-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(recipientEmail);
-            helper.setSubject("⚠️ Weather Alert for Your Holiday - " + holidayPlan.getTitle());
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Weather alert email sent to: {}", recipientEmail);
-            
-        } catch (MessagingException e) {
-            log.error("Error sending weather alert email to {}: {}", recipientEmail, e.getMessage());
-            throw new RuntimeException("Failed to send weather alert email", e);
-        }
+        Context context = createWeatherAlertContext(holidayPlan, affectedActivities, weatherAlert);
+        enqueue(recipientEmail, "weather-alert-email", "⚠️ Weather Alert for Your Holiday - " + holidayPlan.getTitle(), context);
+        log.info("Weather alert email queued for: {}", recipientEmail);
     }
     
+    @Transactional
     public void sendHolidayReminderEmail(String recipientEmail, HolidayPlan holidayPlan, int daysUntilTrip) {
-        try {
-            Context context = createHolidayReminderContext(holidayPlan, daysUntilTrip);
-            String htmlContent = templateEngine.process("holiday-reminder-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(recipientEmail);
-            helper.setSubject("🎒 Your Holiday to " + holidayPlan.getDestination() + " is Coming Up!");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Holiday reminder email sent to: {}", recipientEmail);
-            
-        } catch (MessagingException e) {
-            log.error("Error sending holiday reminder email to {}: {}", recipientEmail, e.getMessage());
-            throw new RuntimeException("Failed to send reminder email", e);
-        }
+        emailOutboxRepository.save(renderHolidayReminderEmail(recipientEmail, holidayPlan, daysUntilTrip));
+        log.info("Holiday reminder email queued for: {}", recipientEmail);
     }
     
+    @Transactional
     public void sendDailyItineraryEmail(String recipientEmail, HolidayPlan holidayPlan, LocalDate date, List<Activity> dailyActivities) {
-        try {
-            Context context = createDailyItineraryContext(holidayPlan, date, dailyActivities);
-            String htmlContent = templateEngine.process("daily-itinerary-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(recipientEmail);
-            helper.setSubject("📅 Today's Itinerary - " + date.format(DateTimeFormatter.ofPattern("MMMM d, yyyy")));
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Daily itinerary email sent to: {}", recipientEmail);
-            
-        } catch (MessagingException e) {
-            log.error("Error sending daily itinerary email to {}: {}", recipientEmail, e.getMessage());
-            throw new RuntimeException("Failed to send daily itinerary email", e);
-        }
+        emailOutboxRepository.save(renderDailyItineraryEmail(recipientEmail, holidayPlan, date, dailyActivities));
+        log.info("Daily itinerary email queued for: {}", recipientEmail);
+    }
+    
+    // Rendering only touches the passed-in state, so bulk mailers call these from worker threads
+    public EmailOutboxMessage renderHolidayReminderEmail(String recipientEmail, HolidayPlan holidayPlan, int daysUntilTrip) {
+        Context context = createHolidayReminderContext(holidayPlan, daysUntilTrip);
+        return render(recipientEmail, "holiday-reminder-email", "🎒 Your Holiday to " + holidayPlan.getDestination() + " is Coming Up!", context);
+    }
+    
+    public EmailOutboxMessage renderDailyItineraryEmail(String recipientEmail, HolidayPlan holidayPlan, LocalDate date, List<Activity> dailyActivities) {
+        Context context = createDailyItineraryContext(holidayPlan, date, dailyActivities);
+        return render(recipientEmail, "daily-itinerary-email", "📅 Today's Itinerary - " + date.format(DateTimeFormatter.ofPattern("MMMM d, yyyy")), context);
+    }
+    
+    /**
+     * Queues pre-rendered messages with one batched insert, skipping any whose deduplication key is already in
+     * the outbox. Returns the number of messages queued.
+     */
+    @Transactional
+    public int enqueueAll(List<EmailOutboxMessage> messages) {
+        return emailOutboxRepository.insertAllSkippingDuplicates(messages);
     }
     
     private Context createHolidayOptimizationContext(HolidayPlan holidayPlan, List<Activity> optimizedActivities) {
@@ -244,29 +203,28 @@ public class EmailService {
         }
     }
     
+    @Transactional
     public void sendTestEmail(String recipientEmail) {
-        try {
-            Context context = new Context(Locale.ENGLISH);
-            context.setVariable("recipientEmail", recipientEmail);
-            context.setVariable("baseUrl", baseUrl);
-            context.setVariable("logoUrl", logoUrl);
-            
-            String htmlContent = templateEngine.process("test-email", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(recipientEmail);
-            helper.setSubject("✅ Holiday Planner Email Test");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Test email sent to: {}", recipientEmail);
-            
-        } catch (MessagingException e) {
-            log.error("Error sending test email to {}: {}", recipientEmail, e.getMessage());
-            throw new RuntimeException("Failed to send test email", e);
-        }
+        Context context = new Context(Locale.ENGLISH);
+        context.setVariable("recipientEmail", recipientEmail);
+        context.setVariable("baseUrl", baseUrl);
+        context.setVariable("logoUrl", logoUrl);
+        
+        enqueue(recipientEmail, "test-email", "✅ Holiday Planner Email Test", context);
+        log.info("Test email queued for: {}", recipientEmail);
+    }
+    
+    private void enqueue(String recipientEmail, String template, String subject, Context context) {
+        emailOutboxRepository.save(render(recipientEmail, template, subject, context));
+    }
+    
+    private EmailOutboxMessage render(String recipientEmail, String template, String subject, Context context) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setMessageType(template);
+        message.setRecipient(recipientEmail);
+        message.setSubject(subject);
+        message.setHtmlBody(templateEngine.process(template, context));
+        message.setNextAttemptAt(LocalDateTime.now());
+        return message;
     }
 }
\ No newline at end of file
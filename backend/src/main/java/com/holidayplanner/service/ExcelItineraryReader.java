@@ -0,0 +1,146 @@
+package com.holidayplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streams the first sheet of an .xlsx workbook row by row with POI's SAX event API, so memory use stays flat
+ * regardless of the number of rows. Cell values are handed over as strings: dates as ISO dates, time-only
+ * values as HH:mm, whole numbers without a decimal part and formulas as their cached result. Date serials are
+ * converted with the workbook's own date system (1900 or 1904).
+ */
+@Component
+@Slf4j
+public class ExcelItineraryReader {
+    
+    @FunctionalInterface
+    public interface RowHandler {
+        
+        /**
+         * @param rowIndex zero-based row index in the sheet
+         * @param cells    cell values by zero-based column index; missing cells are empty strings
+         */
+        void handleRow(int rowIndex, List<String> cells);
+    }
+    
+    public void read(File workbookFile, RowHandler rowHandler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(workbookFile, PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        xssfReader.getStylesTable(), null, sharedStrings,
+                        new RowCollector(rowHandler), new ItineraryDataFormatter(isDate1904(xssfReader)), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException | XmlException e) {
+            throw new IOException("Invalid Excel workbook: " + e.getMessage(), e);
+        }
+    }
+    
+    // The date system is a workbook property (Excel for Mac used to default to 1904); the sheet stream does not carry it
+    private static boolean isDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException, XmlException {
+        try (InputStream workbook = xssfReader.getWorkbookData()) {
+            CTWorkbookPr properties = WorkbookDocument.Factory.parse(workbook).getWorkbook().getWorkbookPr();
+            return properties != null && properties.getDate1904();
+        }
+    }
+    
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        
+        private final RowHandler rowHandler;
+        private final List<String> cells = new ArrayList<>();
+        private int currentColumn;
+        
+        RowCollector(RowHandler rowHandler) {
+            this.rowHandler = rowHandler;
+        }
+        
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            currentColumn = -1;
+        }
+        
+        @Override
+        public void endRow(int rowNum) {
+            rowHandler.handleRow(rowNum, List.copyOf(cells));
+        }
+        
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Empty cells are not reported, so pad the gap from the previous cell
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : currentColumn + 1;
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue != null ? formattedValue : "");
+            currentColumn = column;
+        }
+    }
+    
+    private static class ItineraryDataFormatter extends DataFormatter {
+        
+        private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+        
+        private final boolean date1904;
+        
+        ItineraryDataFormatter(boolean date1904) {
+            this.date1904 = date1904;
+        }
+        
+        // XSSFSheetXMLHandler formats through this overload, which would otherwise assume the 1900 date system
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return formatRawCellContents(value, formatIndex, formatString, date1904);
+        }
+        
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                LocalDateTime dateTime = DateUtil.getLocalDateTime(value, use1904Windowing);
+                // Serial values below one day carry only a time of day
+                return value < 1 ? dateTime.toLocalTime().format(TIME_FORMAT) : dateTime.toLocalDate().toString();
+            }
+            if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                return Long.toString((long) value);
+            }
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.HolidayPlan;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes a plan and its activities as an .xlsx workbook using a windowed SXSSF workbook, so only the last
+ * {@code export.excel.row-window} rows are kept in memory and the file is written straight to the target stream.
+ * Column widths come from the longest value seen per column instead of {@code autoSizeColumn}, which would
+ * re-measure every cell with font metrics.
+ */
+@Component
+@Slf4j
+public class ExcelItineraryWriter {
+    
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    
+    private static final String[] HEADERS = {"Activity", "Description", "Date", "Location", "Type", "Time Slot",
+            "Start Time", "End Time", "Weather Dependent", "Priority", "Cost", "Duration", "Notes"};
+    
+    private static final int MAX_COLUMN_CHARS = 60;
+    
+    @Value("${export.excel.row-window:100}")
+    private int rowWindow;
+    
+    public void write(HolidayPlan plan, Iterator<Activity> activities, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Holiday Plan");
+            int[] columnChars = new int[HEADERS.length];
+            
+            // Create header information
+            writeLabelRow(sheet, 0, "Title:", plan.getTitle(), columnChars);
+            writeLabelRow(sheet, 1, "Destination:", plan.getDestination(), columnChars);
+            writeLabelRow(sheet, 2, "Start Date:", plan.getStartDate().toString(), columnChars);
+            writeLabelRow(sheet, 3, "End Date:", plan.getEndDate().toString(), columnChars);
+            
+            // Create activities header
+            Row headerRow = sheet.createRow(5);
+            for (int i = 0; i < HEADERS.length; i++) {
+                setText(headerRow, i, HEADERS[i], columnChars);
+            }
+            
+            // Add activities; rows leaving the window are flushed to a temp file
+            int rowNum = 6;
+            while (activities.hasNext()) {
+                writeActivityRow(sheet.createRow(rowNum++), activities.next(), columnChars);
+            }
+            
+            for (int i = 0; i < HEADERS.length; i++) {
+                sheet.setColumnWidth(i, (Math.min(columnChars[i], MAX_COLUMN_CHARS) + 2) * 256);
+            }
+            
+            workbook.write(outputStream);
+            log.info("Exported {} activities of holiday plan {} to Excel", rowNum - 6, plan.getId());
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+    
+    private void writeLabelRow(Sheet sheet, int rowIndex, String label, String value, int[] columnChars) {
+        Row row = sheet.createRow(rowIndex);
+        setText(row, 0, label, columnChars);
+        setText(row, 1, value, columnChars);
+    }
+    
+    private void writeActivityRow(Row row, Activity activity, int[] columnChars) {
+        setText(row, 0, activity.getName(), columnChars);
+        setText(row, 1, activity.getDescription() != null ? activity.getDescription() : "", columnChars);
+        setText(row, 2, activity.getDate().toString(), columnChars);
+        setText(row, 3, activity.getLocation(), columnChars);
+        setText(row, 4, activity.getType().toString(), columnChars);
+        setText(row, 5, activity.getTimeSlot().toString(), columnChars);
+        setText(row, 6, activity.getStartTime() != null ? activity.getStartTime().toString() : "", columnChars);
+        setText(row, 7, activity.getEndTime() != null ? activity.getEndTime().toString() : "", columnChars);
+        row.createCell(8).setCellValue(activity.getWeatherDependent() != null ? activity.getWeatherDependent() : false);
+        setNumber(row, 9, activity.getPriorityLevel() != null ? activity.getPriorityLevel() : 5, columnChars);
+        setNumber(row, 10, activity.getCostEstimate() != null ? activity.getCostEstimate() : 0, columnChars);
+        setNumber(row, 11, activity.getEstimatedDurationMinutes() != null ? activity.getEstimatedDurationMinutes() : 60, columnChars);
+        setText(row, 12, activity.getNotes() != null ? activity.getNotes() : "", columnChars);
+    }
+    
+    private void setText(Row row, int column, String value, int[] columnChars) {
+        row.createCell(column).setCellValue(value);
+        if (value != null) {
+            columnChars[column] = Math.max(columnChars[column], value.length());
+        }
+    }
+    
+    private void setNumber(Row row, int column, double value, int[] columnChars) {
+        row.createCell(column).setCellValue(value);
+        // Numbers here are short; the header is normally the widest value
+        columnChars[column] = Math.max(columnChars[column], 8);
+    }
+}
\ No newline at end of file
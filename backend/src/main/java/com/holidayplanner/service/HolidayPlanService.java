@@ -1,28 +1,41 @@
 package com.holidayplanner.service;
 
+import com.holidayplanner.cache.ActivityIntervalIndex;
+import com.holidayplanner.cache.ActivityIntervalTree;
+import com.holidayplanner.cache.PlanStatisticsCache;
+import com.holidayplanner.dto.ActivitySummary;
+import com.holidayplanner.dto.ExcelImportResult;
+import com.holidayplanner.dto.HolidayPlanSummary;
 import com.holidayplanner.model.Activity;
 import com.holidayplanner.model.HolidayPlan;
 import com.holidayplanner.repository.ActivityRepository;
 import com.holidayplanner.repository.HolidayPlanRepository;
+import com.holidayplanner.repository.HolidayPlanSpecifications;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -32,11 +45,48 @@ public class HolidayPlanService {
     private final HolidayPlanRepository holidayPlanRepository;
     private final ActivityRepository activityRepository;
     private final EmailService emailService;
+    private final ExcelItineraryReader excelItineraryReader;
+    private final ExcelItineraryWriter excelItineraryWriter;
+    private final PdfItineraryRenderer pdfItineraryRenderer;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final PlanStatisticsCache planStatisticsCache;
+    private final ActivityIntervalIndex activityIntervalIndex;
     
-    public Page<HolidayPlan> findWithFilters(String userEmail, String destination, HolidayPlan.PlanStatus status, 
-                                           LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        // For now, return all plans - in production, implement filtering
-        return holidayPlanRepository.findAll(pageable);
+    @Value("${import.excel.batch-size:500}")
+    private int importBatchSize;
+    
+    @Value("${holiday-plans.keyset.max-page-size:100}")
+    private int maxKeysetPageSize;
+    
+    @Value("${holiday-plans.clone.max-targets:1000}")
+    private int maxCloneTargets;
+    
+    public Page<HolidayPlanSummary> findWithFilters(String userEmail, String destination, HolidayPlan.PlanStatus status, 
+                                                  LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        Specification<HolidayPlan> specification =
+                HolidayPlanSpecifications.withFilters(userEmail, destination, status, startDate, endDate);
+        return holidayPlanRepository.findSummaries(specification, pageable);
+    }
+    
+    public KeysetPage<HolidayPlanSummary> findWithFiltersAfter(String userEmail, String destination, HolidayPlan.PlanStatus status,
+                                                               LocalDate startDate, LocalDate endDate,
+                                                               LocalDate afterStartDate, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxKeysetPageSize));
+        Specification<HolidayPlan> specification =
+                HolidayPlanSpecifications.withFilters(userEmail, destination, status, startDate, endDate);
+        
+        // Read one extra row to know whether another page follows without a COUNT query
+        List<HolidayPlanSummary> plans = holidayPlanRepository.findSummariesAfter(specification, afterStartDate, afterId, pageSize + 1);
+        boolean hasNext = plans.size() > pageSize;
+        if (hasNext) {
+            plans = plans.subList(0, pageSize);
+        }
+        
+        HolidayPlanSummary last = hasNext ? plans.get(plans.size() - 1) : null;
+        return new KeysetPage<>(plans, plans.size(), hasNext,
+                last != null ? last.startDate() : null,
+                last != null ? last.id() : null);
     }
     
     public HolidayPlan findById(Long id) {
@@ -67,6 +117,7 @@ public class HolidayPlanService {
         existingPlan.setWeatherOptimizationEnabled(updatedPlan.getWeatherOptimizationEnabled());
         existingPlan.setStatus(updatedPlan.getStatus());
         
+        planStatisticsCache.invalidate(id);
         return holidayPlanRepository.save(existingPlan);
     }
     
@@ -74,47 +125,28 @@ public class HolidayPlanService {
     public void deleteHolidayPlan(Long id) {
         HolidayPlan plan = findById(id);
         holidayPlanRepository.delete(plan);
+        planStatisticsCache.invalidate(id);
+        activityIntervalIndex.invalidate(id);
         log.info("Deleted holiday plan: {}", id);
     }
     
     @Transactional
-    public HolidayPlan createHolidayPlanFromExcel(MultipartFile file, String userEmail, String destination) {
+    public ExcelImportResult createHolidayPlanFromExcel(MultipartFile file, String userEmail, String destination) {
+        log.info("Processing Excel file for user: {}", userEmail);
+        
+        Path workbookFile = null;
         try {
-            log.info("Processing Excel file for user: {}", userEmail);
-            
-            Workbook workbook = new XSSFWorkbook(file.getInputStream());
-            Sheet sheet = workbook.getSheetAt(0);
+            // Spool the upload to disk so POI can stream the sheet instead of holding the whole package in memory
+            workbookFile = Files.createTempFile("itinerary-import-", ".xlsx");
+            file.transferTo(workbookFile);
             
-            // Parse basic information
-            String title = getCellValue(sheet.getRow(0), 1, destination + " Holiday Plan");
-            LocalDate startDate = LocalDate.parse(getCellValue(sheet.getRow(1), 1, LocalDate.now().toString()));
-            LocalDate endDate = LocalDate.parse(getCellValue(sheet.getRow(2), 1, LocalDate.now().plusDays(7).toString()));
+            ExcelImport excelImport = new ExcelImport(userEmail, destination);
+            excelItineraryReader.read(workbookFile.toFile(), excelImport::handleRow);
+            ExcelImportResult result = excelImport.finish();
             
-            // Create holiday plan
-            HolidayPlan holidayPlan = new HolidayPlan();
-            holidayPlan.setTitle(title);
-            holidayPlan.setDestination(destination);
-            holidayPlan.setStartDate(startDate);
-            holidayPlan.setEndDate(endDate);
-            holidayPlan.setUserEmail(userEmail);
-            holidayPlan.setStatus(HolidayPlan.PlanStatus.DRAFT);
-            holidayPlan.setWeatherOptimizationEnabled(true);
-            
-            holidayPlan = holidayPlanRepository.save(holidayPlan);
-            
-            // Parse activities (assuming they start from row 5)
-            List<Activity> activities = parseActivitiesFromExcel(sheet, holidayPlan);
-            
-            // Save activities
-            for (Activity activity : activities) {
-                activity.setHolidayPlan(holidayPlan);
-                activityRepository.save(activity);
-            }
-            
-            workbook.close();
-            
-            log.info("Successfully created holiday plan from Excel: {}", holidayPlan.getId());
-            return holidayPlan;
+            log.info("Successfully created holiday plan from Excel: {} ({} activities, {} rows skipped)",
+                    result.plan().id(), result.importedActivities(), result.skippedRows());
+            return result;
             
         } catch (IOException e) {
             log.error("Error reading Excel file: {}", e.getMessage());
@@ -122,132 +154,204 @@ public class HolidayPlanService {
         } catch (Exception e) {
             log.error("Error creating holiday plan from Excel: {}", e.getMessage());
             throw new RuntimeException("Failed to create holiday plan from Excel", e);
+        } finally {
+            if (workbookFile != null) {
+                try {
+                    Files.deleteIfExists(workbookFile);
+                } catch (IOException e) {
+                    log.warn("Could not delete temporary import file {}: {}", workbookFile, e.getMessage());
+                }
+            }
         }
     }
     
-    private List<Activity> parseActivitiesFromExcel(Sheet sheet, HolidayPlan holidayPlan) {
-        List<Activity> activities = new ArrayList<>();
+    /**
+     * State of one streaming Excel import. Rows 1-3 hold the plan title, start date and end date; activities start
+     * at row 5. Activities are written in batches of {@code import.excel.batch-size}, and the persistence context is
+     * cleared after each batch so memory use does not grow with the number of rows.
+     */
+    private class ExcelImport {
+        
+        private final String userEmail;
+        private final String destination;
+        private final List<Activity> pendingActivities = new ArrayList<>();
+        private final List<ExcelImportResult.RowError> rowErrors = new ArrayList<>();
+        
+        private String title;
+        private String startDate;
+        private String endDate;
+        private HolidayPlan holidayPlan;
+        private HolidayPlanSummary planSummary;
+        private int importedActivities;
+        private int skippedRows;
+        
+        ExcelImport(String userEmail, String destination) {
+            this.userEmail = userEmail;
+            this.destination = destination;
+        }
         
-        // Skip header rows and start from row 5 (0-indexed: row 4)
-        for (int i = 4; i <= sheet.getLastRowNum(); i++) {
-            Row row = sheet.getRow(i);
-            if (row == null) continue;
-            
-            try {
-                Activity activity = new Activity();
-                
-                // Parse activity data from Excel columns
-                String name = getCellValue(row, 0, "");
-                if (name.trim().isEmpty()) continue;
-                
-                activity.setName(name);
-                activity.setDescription(getCellValue(row, 1, ""));
-                activity.setDate(LocalDate.parse(getCellValue(row, 2, LocalDate.now().toString())));
-                activity.setLocation(getCellValue(row, 3, holidayPlan.getDestination()));
-                
-                // Parse activity type
-                String typeStr = getCellValue(row, 4, "OTHER");
-                try {
-                    activity.setType(Activity.ActivityType.valueOf(typeStr.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    activity.setType(Activity.ActivityType.OTHER);
-                }
-                
-                // Parse time slot
-                String timeSlotStr = getCellValue(row, 5, "MORNING");
-                try {
-                    activity.setTimeSlot(Activity.TimeSlot.valueOf(timeSlotStr.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    activity.setTimeSlot(Activity.TimeSlot.MORNING);
-                }
-                
-                // Parse times if provided
-                String startTimeStr = getCellValue(row, 6, "");
-                String endTimeStr = getCellValue(row, 7, "");
-                
-                if (!startTimeStr.isEmpty()) {
-                    try {
-                        activity.setStartTime(LocalTime.parse(startTimeStr));
-                    } catch (Exception e) {
-                        log.warn("Invalid start time format: {}", startTimeStr);
+        void handleRow(int rowIndex, List<String> cells) {
+            switch (rowIndex) {
+                case 0 -> title = cellValue(cells, 1, null);
+                case 1 -> startDate = cellValue(cells, 1, null);
+                case 2 -> endDate = cellValue(cells, 1, null);
+                default -> {
+                    // Skip header rows and start from row 5 (0-indexed: row 4)
+                    if (rowIndex < 4) {
+                        return;
                     }
-                }
-                
-                if (!endTimeStr.isEmpty()) {
-                    try {
-                        activity.setEndTime(LocalTime.parse(endTimeStr));
-                    } catch (Exception e) {
-                        log.warn("Invalid end time format: {}", endTimeStr);
+                    ensurePlan();
+                    Activity activity = parseActivity(rowIndex + 1, cells);
+                    if (activity != null) {
+                        pendingActivities.add(activity);
+                        if (pendingActivities.size() >= importBatchSize) {
+                            flushActivities();
+                        }
                     }
                 }
-                
-                // Parse weather dependency
-                String weatherDependentStr = getCellValue(row, 8, "false");
-                activity.setWeatherDependent(Boolean.parseBoolean(weatherDependentStr));
-                
-                // Parse priority
-                String priorityStr = getCellValue(row, 9, "5");
-                try {
-                    activity.setPriorityLevel(Integer.parseInt(priorityStr));
-                } catch (NumberFormatException e) {
-                    activity.setPriorityLevel(5);
-                }
-                
-                // Parse cost estimate
-                String costStr = getCellValue(row, 10, "0");
-                try {
-                    activity.setCostEstimate(Double.parseDouble(costStr));
-                } catch (NumberFormatException e) {
-                    activity.setCostEstimate(0.0);
-                }
-                
-                // Parse duration
-                String durationStr = getCellValue(row, 11, "60");
-                try {
-                    activity.setEstimatedDurationMinutes(Integer.parseInt(durationStr));
-                } catch (NumberFormatException e) {
-                    activity.setEstimatedDurationMinutes(60);
-                }
-                
-                activity.setNotes(getCellValue(row, 12, ""));
-                activity.setBookingRequired(Boolean.parseBoolean(getCellValue(row, 13, "false")));
-                activity.setBookingUrl(getCellValue(row, 14, ""));
-                activity.setContactInfo(getCellValue(row, 15, ""));
-                
-                activities.add(activity);
-                
-            } catch (Exception e) {
-                log.warn("Error parsing activity from row {}: {}", i, e.getMessage());
             }
         }
         
-        return activities;
-    }
-    
-    private String getCellValue(Row row, int columnIndex, String defaultValue) {
-        if (row == null) return defaultValue;
+        ExcelImportResult finish() {
+            ensurePlan();
+            flushActivities();
+            return new ExcelImportResult(planSummary, importedActivities, skippedRows, List.copyOf(rowErrors));
+        }
         
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null) return defaultValue;
+        private void ensurePlan() {
+            if (holidayPlan != null) {
+                return;
+            }
+            
+            // Create holiday plan
+            HolidayPlan plan = new HolidayPlan();
+            plan.setTitle(title != null ? title : destination + " Holiday Plan");
+            plan.setDestination(destination);
+            plan.setStartDate(parseHeaderDate(2, "start date", startDate, LocalDate.now()));
+            plan.setEndDate(parseHeaderDate(3, "end date", endDate, LocalDate.now().plusDays(7)));
+            plan.setUserEmail(userEmail);
+            plan.setStatus(HolidayPlan.PlanStatus.DRAFT);
+            plan.setWeatherOptimizationEnabled(true);
+            
+            holidayPlan = holidayPlanRepository.save(plan);
+            planSummary = HolidayPlanSummary.from(holidayPlan);
+        }
         
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getLocalDateTimeCellValue().format(DateTimeFormatter.ISO_LOCAL_DATE);
-                } else {
-                    return String.valueOf((int) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
+        private void flushActivities() {
+            if (pendingActivities.isEmpty()) {
+                return;
+            }
+            
+            // One JDBC batch per flush; clearing detaches the plan, so later rows reference it by id only
+            activityRepository.saveAll(pendingActivities);
+            entityManager.flush();
+            entityManager.clear();
+            holidayPlan = entityManager.getReference(HolidayPlan.class, planSummary.id());
+            
+            importedActivities += pendingActivities.size();
+            pendingActivities.clear();
+        }
+        
+        private LocalDate parseHeaderDate(int row, String label, String value, LocalDate defaultValue) {
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                rowErrors.add(new ExcelImportResult.RowError(row, "Invalid " + label + " '" + value + "', using " + defaultValue, false));
+                return defaultValue;
+            }
+        }
+        
+        private Activity parseActivity(int row, List<String> cells) {
+            // Parse activity data from Excel columns
+            String name = cellValue(cells, 0, "");
+            if (name.trim().isEmpty()) {
+                return null;
+            }
+            
+            Activity activity = new Activity();
+            activity.setHolidayPlan(holidayPlan);
+            activity.setName(name);
+            activity.setDescription(cellValue(cells, 1, ""));
+            
+            String dateStr = cellValue(cells, 2, LocalDate.now().toString());
+            try {
+                activity.setDate(LocalDate.parse(dateStr));
+            } catch (DateTimeParseException e) {
+                rowErrors.add(new ExcelImportResult.RowError(row, "Invalid date '" + dateStr + "'; row skipped", true));
+                skippedRows++;
+                return null;
+            }
+            activity.setLocation(cellValue(cells, 3, destination));
+            
+            // Parse activity type
+            String typeStr = cellValue(cells, 4, "OTHER");
+            try {
+                activity.setType(Activity.ActivityType.valueOf(typeStr.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                rowErrors.add(new ExcelImportResult.RowError(row, "Unknown activity type '" + typeStr + "', using OTHER", false));
+                activity.setType(Activity.ActivityType.OTHER);
+            }
+            
+            // Parse time slot
+            String timeSlotStr = cellValue(cells, 5, "MORNING");
+            try {
+                activity.setTimeSlot(Activity.TimeSlot.valueOf(timeSlotStr.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                rowErrors.add(new ExcelImportResult.RowError(row, "Unknown time slot '" + timeSlotStr + "', using MORNING", false));
+                activity.setTimeSlot(Activity.TimeSlot.MORNING);
+            }
+            
+            // Parse times if provided
+            activity.setStartTime(parseTime(row, "start time", cellValue(cells, 6, "")));
+            activity.setEndTime(parseTime(row, "end time", cellValue(cells, 7, "")));
+            
+            // Parse weather dependency
+            activity.setWeatherDependent(Boolean.parseBoolean(cellValue(cells, 8, "false").trim()));
+            
+            activity.setPriorityLevel(parseNumber(row, "priority", cellValue(cells, 9, "5"), Integer::parseInt, 5));
+            activity.setCostEstimate(parseNumber(row, "cost", cellValue(cells, 10, "0"), Double::parseDouble, 0.0));
+            activity.setEstimatedDurationMinutes(parseNumber(row, "duration", cellValue(cells, 11, "60"), Integer::parseInt, 60));
+            
+            activity.setNotes(cellValue(cells, 12, ""));
+            activity.setBookingRequired(Boolean.parseBoolean(cellValue(cells, 13, "false").trim()));
+            activity.setBookingUrl(cellValue(cells, 14, ""));
+            activity.setContactInfo(cellValue(cells, 15, ""));
+            
+            return activity;
+        }
+        
+        private LocalTime parseTime(int row, String label, String value) {
+            if (value.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalTime.parse(value.trim());
+            } catch (DateTimeParseException e) {
+                rowErrors.add(new ExcelImportResult.RowError(row, "Invalid " + label + " '" + value + "', left empty", false));
+                return null;
+            }
+        }
+        
+        private <T> T parseNumber(int row, String label, String value, Function<String, T> parser, T defaultValue) {
+            try {
+                return parser.apply(value.trim());
+            } catch (NumberFormatException e) {
+                rowErrors.add(new ExcelImportResult.RowError(row, "Invalid " + label + " '" + value + "', using " + defaultValue, false));
                 return defaultValue;
+            }
         }
     }
     
+    private static String cellValue(List<String> cells, int columnIndex, String defaultValue) {
+        if (columnIndex >= cells.size() || cells.get(columnIndex).isBlank()) {
+            return defaultValue;
+        }
+        return cells.get(columnIndex);
+    }
+    
     public List<Activity> getActivitiesForPlan(Long planId) {
         return activityRepository.findByHolidayPlanIdOrderByDateAscStartTimeAsc(planId);
     }
@@ -256,8 +360,16 @@ public class HolidayPlanService {
         return activityRepository.findByHolidayPlanIdAndDateOrderByStartTimeAsc(planId, date);
     }
     
+    public List<ActivitySummary> getActivitySummariesForPlan(Long planId) {
+        return activityRepository.findSummariesByHolidayPlanId(planId);
+    }
+    
+    public List<ActivitySummary> getActivitySummariesForDate(Long planId, LocalDate date) {
+        return activityRepository.findSummariesByHolidayPlanIdAndDate(planId, date);
+    }
+    
     @Transactional
-    public Activity addActivity(Long planId, Activity activity) {
+    public Activity addActivity(Long planId, Activity activity, boolean allowConflicts) {
         HolidayPlan plan = findById(planId);
         activity.setHolidayPlan(plan);
         
@@ -266,18 +378,29 @@ public class HolidayPlanService {
             activity.getDate().isAfter(plan.getEndDate())) {
             throw new RuntimeException("Activity date must be within holiday plan dates");
         }
+        if (!allowConflicts) {
+            checkConflicts(planId, activity, null);
+        }
         
-        return activityRepository.save(activity);
+        Activity saved = activityRepository.save(activity);
+        planStatisticsCache.activityAdded(planId, PlanStatisticsCache.ActivityFacts.of(saved));
+        activityIntervalIndex.activityAdded(planId, ActivityIntervalIndex.Placement.of(saved));
+        return saved;
     }
     
     @Transactional
-    public Activity updateActivity(Long planId, Long activityId, Activity updatedActivity) {
+    public Activity updateActivity(Long planId, Long activityId, Activity updatedActivity, boolean allowConflicts) {
         Activity existingActivity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new RuntimeException("Activity not found: " + activityId));
         
         if (!existingActivity.getHolidayPlan().getId().equals(planId)) {
             throw new RuntimeException("Activity does not belong to this holiday plan");
         }
+        if (!allowConflicts) {
+            checkConflicts(planId, updatedActivity, activityId);
+        }
+        PlanStatisticsCache.ActivityFacts before = PlanStatisticsCache.ActivityFacts.of(existingActivity);
+        ActivityIntervalIndex.Placement placementBefore = ActivityIntervalIndex.Placement.of(existingActivity);
         
         // Update activity fields
         existingActivity.setName(updatedActivity.getName());
@@ -297,7 +420,10 @@ public class HolidayPlanService {
         existingActivity.setBookingUrl(updatedActivity.getBookingUrl());
         existingActivity.setContactInfo(updatedActivity.getContactInfo());
         
-        return activityRepository.save(existingActivity);
+        Activity saved = activityRepository.save(existingActivity);
+        planStatisticsCache.activityChanged(planId, before, PlanStatisticsCache.ActivityFacts.of(saved));
+        activityIntervalIndex.activityChanged(planId, placementBefore, ActivityIntervalIndex.Placement.of(saved));
+        return saved;
     }
     
     @Transactional
@@ -310,117 +436,107 @@ public class HolidayPlanService {
         }
         
         activityRepository.delete(activity);
+        planStatisticsCache.activityRemoved(planId, PlanStatisticsCache.ActivityFacts.of(activity));
+        activityIntervalIndex.activityRemoved(planId, ActivityIntervalIndex.Placement.of(activity));
+    }
+    
+    // Answered from the in-memory interval index; a miss loads the plan's activity summaries once
+    public List<ActivityIntervalTree.Interval> findActivityConflicts(Long planId, LocalDate date, LocalTime startTime,
+                                                                     LocalTime endTime, Long excludedActivityId) {
+        return activityIntervalIndex.findConflicts(planId, date, startTime, endTime, excludedActivityId, () -> {
+            findById(planId);
+            return activityRepository.findSummariesByHolidayPlanId(planId);
+        });
+    }
+    
+    public Map<String, Object> getIntervalIndexStatistics() {
+        return activityIntervalIndex.getStatistics();
     }
     
+    private void checkConflicts(Long planId, Activity activity, Long activityId) {
+        List<ActivityIntervalTree.Interval> conflicts = findActivityConflicts(planId, activity.getDate(),
+                activity.getStartTime(), activity.getEndTime(), activityId);
+        if (!conflicts.isEmpty()) {
+            throw new ActivityConflictException(conflicts);
+        }
+    }
+    
+    // Served from the incrementally maintained snapshot; a miss costs one grouped aggregate query
     public Map<String, Object> getHolidayPlanStatistics(Long planId) {
-        HolidayPlan plan = findById(planId);
-        List<Activity> activities = getActivitiesForPlan(planId);
-        
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalActivities", activities.size());
-        stats.put("totalDays", plan.getEndDate().toEpochDay() - plan.getStartDate().toEpochDay() + 1);
-        
-        // Calculate total estimated cost
-        double totalCost = activities.stream()
-                .mapToDouble(activity -> activity.getCostEstimate() != null ? activity.getCostEstimate() : 0)
-                .sum();
-        stats.put("totalEstimatedCost", totalCost);
-        
-        // Calculate total estimated duration
-        int totalDuration = activities.stream()
-                .mapToInt(activity -> activity.getEstimatedDurationMinutes() != null ? activity.getEstimatedDurationMinutes() : 0)
-                .sum();
-        stats.put("totalEstimatedDurationMinutes", totalDuration);
-        
-        // Activities by type
-        Map<Activity.ActivityType, Long> activitiesByType = activities.stream()
-                .collect(Collectors.groupingBy(Activity::getType, Collectors.counting()));
-        stats.put("activitiesByType", activitiesByType);
-        
-        // Activities by time slot
-        Map<Activity.TimeSlot, Long> activitiesByTimeSlot = activities.stream()
-                .collect(Collectors.groupingBy(Activity::getTimeSlot, Collectors.counting()));
-        stats.put("activitiesByTimeSlot", activitiesByTimeSlot);
-        
-        // Weather-dependent activities
-        long weatherDependentCount = activities.stream()
-                .filter(activity -> activity.getWeatherDependent() != null && activity.getWeatherDependent())
-                .count();
-        stats.put("weatherDependentActivities", weatherDependentCount);
-        
-        // AI-optimized activities
-        long aiOptimizedCount = activities.stream()
-                .filter(activity -> activity.getAiOptimized() != null && activity.getAiOptimized())
-                .count();
-        stats.put("aiOptimizedActivities", aiOptimizedCount);
-        
-        return stats;
+        return planStatisticsCache.getOrLoad(planId, () -> {
+            HolidayPlan plan = findById(planId);
+            return new PlanStatisticsCache.Source(plan.getStartDate(), plan.getEndDate(),
+                    activityRepository.aggregateStatisticsByHolidayPlanId(planId));
+        });
+    }
+    
+    public Map<String, Object> getStatisticsCacheStatistics() {
+        return planStatisticsCache.getStatistics();
     }
     
     @Transactional
     public HolidayPlan cloneHolidayPlan(Long originalPlanId, String userEmail, String newTitle) {
+        List<Long> clonedPlanIds = copyPlan(originalPlanId, List.of(userEmail), newTitle);
+        return findById(clonedPlanIds.get(0));
+    }
+    
+    @Transactional
+    public List<HolidayPlanSummary> cloneHolidayPlanForUsers(Long originalPlanId, List<String> userEmails, String newTitle) {
+        if (userEmails == null || userEmails.isEmpty()) {
+            throw new RuntimeException("At least one user email is required");
+        }
+        if (userEmails.size() > maxCloneTargets) {
+            throw new RuntimeException("Cannot clone to more than " + maxCloneTargets + " users at once");
+        }
+        if (userEmails.stream().anyMatch(email -> email == null || email.isBlank())) {
+            throw new RuntimeException("User emails must not be blank");
+        }
+        
+        List<Long> clonedPlanIds = copyPlan(originalPlanId, userEmails, newTitle);
+        return holidayPlanRepository.findSummariesByIdIn(clonedPlanIds);
+    }
+    
+    // Two statements regardless of plan size or number of users: one INSERT ... SELECT for the plans and one for
+    // all of their activities
+    private List<Long> copyPlan(Long originalPlanId, List<String> userEmails, String newTitle) {
         HolidayPlan originalPlan = findById(originalPlanId);
+        String title = newTitle != null ? newTitle : originalPlan.getTitle() + " (Copy)";
         
-        // Create new plan
-        HolidayPlan clonedPlan = new HolidayPlan();
-        clonedPlan.setTitle(newTitle != null ? newTitle : originalPlan.getTitle() + " (Copy)");
-        clonedPlan.setDestination(originalPlan.getDestination());
-        clonedPlan.setStartDate(originalPlan.getStartDate());
-        clonedPlan.setEndDate(originalPlan.getEndDate());
-        clonedPlan.setUserEmail(userEmail);
-        clonedPlan.setStatus(HolidayPlan.PlanStatus.DRAFT);
-        clonedPlan.setWeatherOptimizationEnabled(originalPlan.getWeatherOptimizationEnabled());
-        clonedPlan.setNotes(originalPlan.getNotes());
-        
-        clonedPlan = holidayPlanRepository.save(clonedPlan);
-        
-        // Clone activities
-        List<Activity> originalActivities = getActivitiesForPlan(originalPlanId);
-        for (Activity originalActivity : originalActivities) {
-            Activity clonedActivity = new Activity();
-            clonedActivity.setName(originalActivity.getName());
-            clonedActivity.setDescription(originalActivity.getDescription());
-            clonedActivity.setDate(originalActivity.getDate());
-            clonedActivity.setStartTime(originalActivity.getStartTime());
-            clonedActivity.setEndTime(originalActivity.getEndTime());
-            clonedActivity.setType(originalActivity.getType());
-            clonedActivity.setTimeSlot(originalActivity.getTimeSlot());
-            clonedActivity.setLocation(originalActivity.getLocation());
-            clonedActivity.setWeatherDependent(originalActivity.getWeatherDependent());
-            clonedActivity.setPriorityLevel(originalActivity.getPriorityLevel());
-            clonedActivity.setCostEstimate(originalActivity.getCostEstimate());
-            clonedActivity.setEstimatedDurationMinutes(originalActivity.getEstimatedDurationMinutes());
-            clonedActivity.setNotes(originalActivity.getNotes());
-            clonedActivity.setBookingRequired(originalActivity.getBookingRequired());
-            clonedActivity.setBookingUrl(originalActivity.getBookingUrl());
-            clonedActivity.setContactInfo(originalActivity.getContactInfo());
-            clonedActivity.setHolidayPlan(clonedPlan);
-            
-            activityRepository.save(clonedActivity);
-        }
+        List<Long> clonedPlanIds = holidayPlanRepository.insertDraftCopies(originalPlanId, title, userEmails.toArray(String[]::new));
+        int copiedActivities = activityRepository.copyActivitiesToPlans(originalPlanId, clonedPlanIds.toArray(Long[]::new));
         
-        return clonedPlan;
+        log.info("Cloned holiday plan {} into {} plans with {} activities", originalPlanId, clonedPlanIds.size(), copiedActivities);
+        return clonedPlanIds;
     }
     
     public Map<String, Object> exportHolidayPlan(Long planId, String format) {
         HolidayPlan plan = findById(planId);
-        List<Activity> activities = getActivitiesForPlan(planId);
         
         Map<String, Object> result = new HashMap<>();
         
         if ("excel".equalsIgnoreCase(format)) {
+            // Kept for existing clients; GET /{id}/export/{format} streams the same file without the Base64 copy
             try {
-                byte[] excelData = exportToExcel(plan, activities);
-                result.put("data", Base64.getEncoder().encodeToString(excelData));
-                result.put("filename", plan.getTitle() + "_" + LocalDate.now() + ".xlsx");
-                result.put("contentType", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                writeExcelExport(plan, outputStream);
+                result.put("data", Base64.getEncoder().encodeToString(outputStream.toByteArray()));
+                result.put("filename", getExportFilename(plan, "xlsx"));
+                result.put("contentType", ExcelItineraryWriter.CONTENT_TYPE);
             } catch (Exception e) {
                 log.error("Error exporting to Excel: {}", e.getMessage());
                 throw new RuntimeException("Failed to export to Excel", e);
             }
         } else if ("pdf".equalsIgnoreCase(format)) {
-            // TODO: Implement PDF export
-            result.put("error", "PDF export not yet implemented");
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                writePdfExport(plan, outputStream);
+                result.put("data", Base64.getEncoder().encodeToString(outputStream.toByteArray()));
+                result.put("filename", getExportFilename(plan, "pdf"));
+                result.put("contentType", PdfItineraryRenderer.CONTENT_TYPE);
+            } catch (Exception e) {
+                log.error("Error exporting to PDF: {}", e.getMessage());
+                throw new RuntimeException("Failed to export to PDF", e);
+            }
         } else {
             result.put("error", "Unsupported format: " + format);
         }
@@ -428,64 +544,46 @@ public class HolidayPlanService {
         return result;
     }
     
-    private byte[] exportToExcel(HolidayPlan plan, List<Activity> activities) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Holiday Plan");
-        
-        // Create header information
-        Row titleRow = sheet.createRow(0);
-        titleRow.createCell(0).setCellValue("Title:");
-        titleRow.createCell(1).setCellValue(plan.getTitle());
-        
-        Row destinationRow = sheet.createRow(1);
-        destinationRow.createCell(0).setCellValue("Destination:");
-        destinationRow.createCell(1).setCellValue(plan.getDestination());
-        
-        Row startDateRow = sheet.createRow(2);
-        startDateRow.createCell(0).setCellValue("Start Date:");
-        startDateRow.createCell(1).setCellValue(plan.getStartDate().toString());
-        
-        Row endDateRow = sheet.createRow(3);
-        endDateRow.createCell(0).setCellValue("End Date:");
-        endDateRow.createCell(1).setCellValue(plan.getEndDate().toString());
-        
-        // Create activities header
-        Row headerRow = sheet.createRow(5);
-        String[] headers = {"Activity", "Description", "Date", "Location", "Type", "Time Slot", 
-                           "Start Time", "End Time", "Weather Dependent", "Priority", "Cost", "Duration", "Notes"};
-        for (int i = 0; i < headers.length; i++) {
-            headerRow.createCell(i).setCellValue(headers[i]);
-        }
-        
-        // Add activities
-        int rowNum = 6;
-        for (Activity activity : activities) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(activity.getName());
-            row.createCell(1).setCellValue(activity.getDescription() != null ? activity.getDescription() : "");
-            row.createCell(2).setCellValue(activity.getDate().toString());
-            row.createCell(3).setCellValue(activity.getLocation());
-            row.createCell(4).setCellValue(activity.getType().toString());
-            row.createCell(5).setCellValue(activity.getTimeSlot().toString());
-            row.createCell(6).setCellValue(activity.getStartTime() != null ? activity.getStartTime().toString() : "");
-            row.createCell(7).setCellValue(activity.getEndTime() != null ? activity.getEndTime().toString() : "");
-            row.createCell(8).setCellValue(activity.getWeatherDependent() != null ? activity.getWeatherDependent() : false);
-            row.createCell(9).setCellValue(activity.getPriorityLevel() != null ? activity.getPriorityLevel() : 5);
-            row.createCell(10).setCellValue(activity.getCostEstimate() != null ? activity.getCostEstimate() : 0);
-            row.createCell(11).setCellValue(activity.getEstimatedDurationMinutes() != null ? activity.getEstimatedDurationMinutes() : 60);
-            row.createCell(12).setCellValue(activity.getNotes() != null ? activity.getNotes() : "");
-        }
-        
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+    /**
+     * Writes the plan as an .xlsx workbook to the given stream.
+     */
+    public void writeExcelExport(HolidayPlan plan, OutputStream outputStream) throws IOException {
+        withActivityCursor(plan.getId(), activities -> excelItineraryWriter.write(plan, activities, outputStream));
+    }
+    
+    /**
+     * Writes the plan as a PDF itinerary to the given stream.
+     */
+    public void writePdfExport(HolidayPlan plan, OutputStream outputStream) throws IOException {
+        withActivityCursor(plan.getId(), activities -> pdfItineraryRenderer.render(plan, activities, outputStream));
+    }
+    
+    @FunctionalInterface
+    private interface ActivityCursorConsumer {
+        void accept(Iterator<Activity> activities) throws IOException;
+    }
+    
+    // Activities are read through a database cursor in a read-only transaction and detached once handed out,
+    // so memory stays bounded regardless of the activity count
+    private void withActivityCursor(Long planId, ActivityCursorConsumer consumer) throws IOException {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        
+        IOException failure = readOnlyTransaction.execute(status -> {
+            try (Stream<Activity> activities = activityRepository.streamByHolidayPlanId(planId)) {
+                consumer.accept(activities.peek(entityManager::detach).iterator());
+                return null;
+            } catch (IOException e) {
+                return e;
+            }
+        });
+        if (failure != null) {
+            throw failure;
         }
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-        
-        return outputStream.toByteArray();
+    }
+    
+    public String getExportFilename(HolidayPlan plan, String extension) {
+        return plan.getTitle() + "_" + LocalDate.now() + "." + extension;
     }
     
     public Map<String, Object> shareHolidayPlan(Long planId, String recipientEmail, String message) {
@@ -506,11 +604,11 @@ public class HolidayPlanService {
         }
     }
     
-    public List<HolidayPlan> getUpcomingHolidaysForUser(String userEmail, int days) {
+    public List<HolidayPlanSummary> getUpcomingHolidaysForUser(String userEmail, int days) {
         LocalDate startDate = LocalDate.now();
         LocalDate endDate = startDate.plusDays(days);
         
-        return holidayPlanRepository.findUpcomingPlans(userEmail, startDate, endDate);
+        return holidayPlanRepository.findUpcomingPlanSummaries(userEmail, startDate, endDate);
     }
     
     public List<String> getPopularDestinations() {
@@ -0,0 +1,11 @@
+package com.holidayplanner.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. The next page is requested with {@code afterStartDate} and
+ * {@code afterId} set to the cursor values of this page; both are {@code null} on the last page.
+ */
+public record KeysetPage<T>(List<T> content, int size, boolean hasNext, LocalDate nextStartDate, Long nextId) {
+}
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.dto.OptimizationProgressEvent;
+import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.HolidayPlan;
+import com.holidayplanner.model.OptimizationJob;
+import com.holidayplanner.repository.OptimizationJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs plan optimizations as background jobs. Submitting persists a job row and returns at once; the work runs on
+ * the bounded {@code optimizationJobExecutor}, and subscribers receive per-day progress and the final result over
+ * Server-Sent Events.
+ * <p>
+ * Several instances can share the job table. The instance that queues a job holds a lease on it and renews it while
+ * the job is queued or running; a job whose lease expired, because its instance stopped or crashed, is claimed by
+ * exactly one other instance and queued again there. Leases are renewed on a dedicated scheduler thread, and a job's
+ * outcome is only recorded, mailed and published while its instance still holds the lease. Subscribers connected to
+ * an instance that is not running their job get its result from the job row, which every instance polls on the lease
+ * renewal tick for the jobs its own subscribers wait for.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OptimizationJobService {
+    
+    private static final List<OptimizationJob.JobStatus> ACTIVE_STATUSES =
+            List.of(OptimizationJob.JobStatus.QUEUED, OptimizationJob.JobStatus.RUNNING);
+    
+    private final OptimizationJobRepository optimizationJobRepository;
+    private final HolidayPlanService holidayPlanService;
+    private final ActivityOptimizationService activityOptimizationService;
+    private final EmailService emailService;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Qualifier("optimizationJobExecutor")
+    private final ThreadPoolTaskExecutor optimizationJobExecutor;
+    
+    private final Map<Long, List<SseEmitter>> emittersByJob = new ConcurrentHashMap<>();
+    
+    // Per-day progress is kept in memory only; status changes and results are persisted
+    private final Map<Long, OptimizationProgressEvent> latestProgress = new ConcurrentHashMap<>();
+    
+    @Value("${ai.agent.activity-optimization.jobs.sse-timeout-minutes:30}")
+    private long sseTimeoutMinutes;
+    
+    @Value("${ai.agent.activity-optimization.jobs.lease-seconds:60}")
+    private long leaseSeconds;
+    
+    // Lease owner name of this instance; a restarted instance is a new owner
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    public OptimizationJob submit(Long planId) {
+        // Fails fast for unknown plans before a job row is written
+        holidayPlanService.findById(planId);
+        
+        // A plan that is already being optimized gets the existing job instead of a second run
+        Optional<OptimizationJob> activeJob = optimizationJobRepository
+                .findFirstByHolidayPlanIdAndStatusInOrderByIdDesc(planId, ACTIVE_STATUSES);
+        if (activeJob.isPresent()) {
+            log.info("Holiday plan {} already has optimization job {} in progress", planId, activeJob.get().getId());
+            return activeJob.get();
+        }
+        
+        OptimizationJob job = new OptimizationJob();
+        job.setHolidayPlanId(planId);
+        job.setStatus(OptimizationJob.JobStatus.QUEUED);
+        job.setLeaseOwner(instanceId);
+        job.setLeaseExpiresAt(LocalDateTime.now().plusSeconds(leaseSeconds));
+        try {
+            job = optimizationJobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent submit for the same plan got in first; uk_optimization_jobs_active_plan allows one active job
+            log.info("Holiday plan {} got an optimization job from a concurrent request", planId);
+            return optimizationJobRepository.findFirstByHolidayPlanIdAndStatusInOrderByIdDesc(planId, ACTIVE_STATUSES)
+                    .orElseThrow(() -> e);
+        }
+        
+        log.info("Queued optimization job {} for holiday plan {}", job.getId(), planId);
+        enqueue(job.getId());
+        return job;
+    }
+    
+    public OptimizationJob getJob(Long jobId) {
+        OptimizationJob job = optimizationJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Optimization job not found with id: " + jobId));
+        
+        OptimizationProgressEvent progress = latestProgress.get(jobId);
+        if (progress != null && job.getStatus() == OptimizationJob.JobStatus.RUNNING) {
+            job.setStage(progress.stage());
+            job.setCompletedDays(progress.completedDays());
+            job.setTotalDays(progress.totalDays());
+        }
+        return job;
+    }
+    
+    public SseEmitter subscribe(Long jobId) {
+        OptimizationJob job = getJob(jobId);
+        SseEmitter emitter = new SseEmitter(Duration.ofMinutes(sseTimeoutMinutes).toMillis());
+        
+        if (!job.isFinished()) {
+            List<SseEmitter> emitters = emittersByJob.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+            emitters.add(emitter);
+            emitter.onCompletion(() -> emitters.remove(emitter));
+            emitter.onTimeout(() -> emitters.remove(emitter));
+            emitter.onError(e -> emitters.remove(emitter));
+            
+            // Re-read after registering so a job finishing in between is not missed
+            job = getJob(jobId);
+        }
+        
+        // Late subscribers get the current state straight away
+        if (job.isFinished()) {
+            send(emitter, "result", job);
+            emitter.complete();
+        } else {
+            send(emitter, "status", job);
+        }
+        return emitter;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        claimExpiredJobs();
+    }
+    
+    @Scheduled(fixedDelayString = "${ai.agent.activity-optimization.jobs.lease-renew-interval-ms:20000}",
+            scheduler = "optimizationLeaseScheduler")
+    public void renewLeases() {
+        optimizationJobRepository.renewLeases(instanceId, LocalDateTime.now().plusSeconds(leaseSeconds));
+        claimExpiredJobs();
+        completeSubscriptionsFinishedElsewhere();
+    }
+    
+    // A subscriber may wait on a job that runs on another instance, or that another instance took over from this
+    // one; once its row is finished the result is sent from there
+    private void completeSubscriptionsFinishedElsewhere() {
+        List<Long> watchedJobIds = emittersByJob.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .toList();
+        if (watchedJobIds.isEmpty()) {
+            return;
+        }
+        for (OptimizationJob job : optimizationJobRepository.findAllById(watchedJobIds)) {
+            if (job.isFinished()) {
+                completeSubscribers(job);
+            }
+        }
+    }
+    
+    private void claimExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expiredJobIds = optimizationJobRepository.findActiveJobIdsWithExpiredLease(now);
+        
+        int claimed = 0;
+        for (Long jobId : expiredJobIds) {
+            // Another instance may claim the same job at the same time; only the one whose update matched runs it
+            if (optimizationJobRepository.claimExpiredJob(jobId, instanceId, now, now.plusSeconds(leaseSeconds)) == 1) {
+                claimed++;
+                enqueue(jobId);
+            }
+        }
+        if (claimed > 0) {
+            log.info("Re-queued {} optimization jobs whose instance stopped renewing them", claimed);
+        }
+    }
+    
+    private void enqueue(Long jobId) {
+        try {
+            optimizationJobExecutor.execute(() -> runJob(jobId));
+        } catch (TaskRejectedException e) {
+            log.warn("Optimization job queue is full, rejecting job {}", jobId);
+            finish(getJob(jobId), OptimizationJob.JobStatus.FAILED, "Too many optimizations in progress, please retry later");
+        }
+    }
+    
+    private void runJob(Long jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (optimizationJobRepository.startJob(jobId, instanceId, now, now.plusSeconds(leaseSeconds)) == 0) {
+            log.info("Optimization job {} was taken over by another instance before it started", jobId);
+            return;
+        }
+        OptimizationJob job = getJob(jobId);
+        publish(jobId, "status", job);
+        
+        try {
+            HolidayPlan plan = holidayPlanService.findById(job.getHolidayPlanId());
+            List<Activity> optimizedActivities = activityOptimizationService.optimizeActivitiesForWeather(plan,
+                    (stage, date, completedDays, totalDays) -> onProgress(jobId, stage, date, completedDays, totalDays));
+            
+            OptimizationJob completedJob = getJob(jobId);
+            completedJob.setOptimizedActivities(optimizedActivities.size());
+            completedJob.setStage("done");
+            if (completedJob.getTotalDays() != null) {
+                completedJob.setCompletedDays(completedJob.getTotalDays());
+            }
+            
+            // The notification is queued in the outbox in the same transaction that marks the job completed, and only
+            // if this instance still owned the job
+            Boolean recorded = new TransactionTemplate(transactionManager).execute(status -> {
+                if (!markFinished(completedJob, OptimizationJob.JobStatus.COMPLETED, null)) {
+                    return false;
+                }
+                emailService.sendHolidayPlanOptimizationEmail(plan.getUserEmail(), plan, optimizedActivities);
+                return true;
+            });
+            if (Boolean.TRUE.equals(recorded)) {
+                notifyFinished(completedJob);
+            } else {
+                lostLease(jobId);
+            }
+        } catch (Exception e) {
+            log.error("Optimization job {} failed: {}", jobId, e.getMessage());
+            finish(getJob(jobId), OptimizationJob.JobStatus.FAILED, e.getMessage());
+        }
+    }
+    
+    private void onProgress(Long jobId, String stage, LocalDate date, int completedDays, int totalDays) {
+        OptimizationProgressEvent event = new OptimizationProgressEvent(jobId, stage, date, completedDays, totalDays);
+        latestProgress.put(jobId, event);
+        publish(jobId, "progress", event);
+    }
+    
+    private void finish(OptimizationJob job, OptimizationJob.JobStatus status, String errorMessage) {
+        if (markFinished(job, status, errorMessage)) {
+            notifyFinished(job);
+        } else {
+            lostLease(job.getId());
+        }
+    }
+    
+    // Conditional on the lease, so an instance that lost the job cannot overwrite the outcome of its new owner
+    private boolean markFinished(OptimizationJob job, OptimizationJob.JobStatus status, String errorMessage) {
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage);
+        job.setCompletedAt(LocalDateTime.now());
+        return optimizationJobRepository.finishJob(job.getId(), instanceId, status.name(), job.getStage(),
+                job.getTotalDays(), job.getCompletedDays(), job.getOptimizedActivities(), errorMessage,
+                job.getCompletedAt()) == 1;
+    }
+    
+    private void lostLease(Long jobId) {
+        latestProgress.remove(jobId);
+        log.warn("Optimization job {} was taken over by another instance while it ran; discarding this run's result", jobId);
+    }
+    
+    private void notifyFinished(OptimizationJob job) {
+        latestProgress.remove(job.getId());
+        
+        log.info("Optimization job {} for holiday plan {} finished with status {}", job.getId(), job.getHolidayPlanId(), job.getStatus());
+        completeSubscribers(job);
+    }
+    
+    // Whoever removes the subscriptions sends the result, so a job finished here that the poll also sees is sent once
+    private void completeSubscribers(OptimizationJob job) {
+        List<SseEmitter> emitters = emittersByJob.remove(job.getId());
+        if (emitters != null) {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, "result", job);
+                emitter.complete();
+            }
+        }
+    }
+    
+    private void publish(Long jobId, String eventName, Object data) {
+        List<SseEmitter> emitters = emittersByJob.get(jobId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, eventName, data)) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+    
+    private boolean send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter's own callbacks clean up the rest
+            log.debug("Dropping SSE subscriber: {}", e.getMessage());
+            return false;
+        }
+    }
+}
\ No newline at end of file
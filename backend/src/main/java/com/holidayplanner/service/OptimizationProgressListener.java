@@ -0,0 +1,22 @@
+package com.holidayplanner.service;
+
+import java.time.LocalDate;
+
+/**
+ * Receives per-day progress from {@link ActivityOptimizationService}. Callbacks may arrive on reactor or executor
+ * threads, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface OptimizationProgressListener {
+    
+    OptimizationProgressListener NONE = (stage, date, completedDays, totalDays) -> {
+    };
+    
+    /**
+     * @param stage         "weather" once a day's forecast is available, "ai" once a day's AI suggestions are in
+     * @param date          the day that completed the stage
+     * @param completedDays days that have completed this stage so far
+     * @param totalDays     days that go through this stage
+     */
+    void onDayCompleted(String stage, LocalDate date, int completedDays, int totalDays);
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.HolidayPlan;
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Renders a plan itinerary as PDF, one table per day, while activities are read from a cursor. Each day's table is
+ * added to the document as soon as the day is complete, and OpenPDF writes finished pages straight to the target
+ * stream, so memory is bounded by one day rather than the whole plan. Fonts and the table header template are
+ * built once and shared by all renders.
+ */
+@Component
+@Slf4j
+public class PdfItineraryRenderer {
+    
+    public static final String CONTENT_TYPE = "application/pdf";
+    
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEEE d MMMM yyyy", Locale.ENGLISH);
+    private static final float[] COLUMN_WIDTHS = {14f, 30f, 22f, 16f, 18f};
+    private static final String[] HEADERS = {"Time", "Activity", "Location", "Type", "Notes"};
+    private static final Color HEADER_BACKGROUND = new Color(230, 236, 245);
+    private static final int ROWS_PER_FLUSH = 50;
+    
+    private final Font titleFont;
+    private final Font subtitleFont;
+    private final Font dayFont;
+    private final Font headerFont;
+    private final Font cellFont;
+    private final Font detailFont;
+    private final PdfPTable dayTableTemplate;
+    
+    public PdfItineraryRenderer() throws IOException {
+        try {
+            // Standard Type 1 fonts: no font file to load or embed, and CP1252 covers Italian accented names
+            BaseFont regular = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            BaseFont bold = BaseFont.createFont(BaseFont.HELVETICA_BOLD, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            
+            titleFont = new Font(bold, 18);
+            subtitleFont = new Font(regular, 11, Font.NORMAL, Color.DARK_GRAY);
+            dayFont = new Font(bold, 13);
+            headerFont = new Font(bold, 9);
+            cellFont = new Font(regular, 9);
+            detailFont = new Font(regular, 8, Font.ITALIC, Color.GRAY);
+            dayTableTemplate = createDayTableTemplate();
+        } catch (DocumentException e) {
+            throw new IOException("Failed to initialise PDF fonts", e);
+        }
+    }
+    
+    public void render(HolidayPlan plan, Iterator<Activity> activities, OutputStream outputStream) throws IOException {
+        Document document = new Document(PageSize.A4, 36, 36, 36, 36);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false);
+            writer.setFullCompression();
+            document.open();
+            
+            writeHeader(document, plan);
+            
+            int activityCount = 0;
+            int dayRowCount = 0;
+            boolean dayTableFlushed = false;
+            LocalDate currentDate = null;
+            PdfPTable dayTable = null;
+            while (activities.hasNext()) {
+                Activity activity = activities.next();
+                if (!activity.getDate().equals(currentDate)) {
+                    completeDayTable(document, writer, dayTable, dayTableFlushed);
+                    currentDate = activity.getDate();
+                    document.add(new Paragraph(currentDate.format(DAY_FORMAT), dayFont));
+                    dayTable = new PdfPTable(dayTableTemplate);
+                    dayTable.setComplete(false);
+                    dayRowCount = 0;
+                    dayTableFlushed = false;
+                }
+                addActivityRow(dayTable, activity);
+                activityCount++;
+                
+                // Incomplete tables are written and emptied on add, which bounds memory on very busy days
+                if (++dayRowCount % ROWS_PER_FLUSH == 0) {
+                    addDayRows(document, writer, dayTable, dayTableFlushed);
+                    dayTableFlushed = true;
+                }
+            }
+            
+            if (dayTable != null) {
+                completeDayTable(document, writer, dayTable, dayTableFlushed);
+            } else {
+                document.add(new Paragraph("No activities planned yet.", cellFont));
+            }
+            
+            document.close();
+            log.info("Exported {} activities of holiday plan {} to PDF", activityCount, plan.getId());
+        } catch (DocumentException e) {
+            throw new IOException("Failed to render PDF itinerary", e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+    
+    private void completeDayTable(Document document, PdfWriter writer, PdfPTable dayTable, boolean flushed)
+            throws DocumentException {
+        if (dayTable != null) {
+            dayTable.setComplete(true);
+            addDayRows(document, writer, dayTable, flushed);
+        }
+    }
+    
+    // Rows added after a flush continue the ones already written: the header is only repeated when they start
+    // on a new page, and there is no gap in between
+    private void addDayRows(Document document, PdfWriter writer, PdfPTable dayTable, boolean continuation)
+            throws DocumentException {
+        if (continuation) {
+            // The previous rows may have filled their page exactly, leaving the position at the top of a new one
+            float position = writer.getVerticalPosition(false);
+            int firstRow = dayTable.getHeaderRows();
+            dayTable.setTotalWidth(document.right() - document.left());
+            boolean continuesOnPage = position < document.top()
+                    && (dayTable.size() <= firstRow || dayTable.getRowHeight(firstRow) <= position - document.bottom());
+            dayTable.setSkipFirstHeader(continuesOnPage);
+            dayTable.setSpacingBefore(0);
+        }
+        document.add(dayTable);
+    }
+    
+    private void writeHeader(Document document, HolidayPlan plan) throws DocumentException {
+        document.addTitle(plan.getTitle());
+        
+        Paragraph title = new Paragraph(plan.getTitle(), titleFont);
+        title.setSpacingAfter(4);
+        document.add(title);
+        
+        Paragraph subtitle = new Paragraph(String.format("%s  |  %s to %s  |  %s",
+                plan.getDestination(), plan.getStartDate(), plan.getEndDate(), plan.getStatus()), subtitleFont);
+        subtitle.setSpacingAfter(8);
+        document.add(subtitle);
+    }
+    
+    private PdfPTable createDayTableTemplate() throws DocumentException {
+        PdfPTable table = new PdfPTable(COLUMN_WIDTHS);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(4);
+        table.setSpacingAfter(12);
+        table.setHeaderRows(1);
+        table.setSplitLate(false);
+        
+        for (String header : HEADERS) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            cell.setBackgroundColor(HEADER_BACKGROUND);
+            cell.setPadding(4);
+            table.addCell(cell);
+        }
+        return table;
+    }
+    
+    private void addActivityRow(PdfPTable table, Activity activity) {
+        table.addCell(cell(new Phrase(formatTime(activity), cellFont)));
+        
+        Phrase name = new Phrase(activity.getName(), cellFont);
+        if (activity.getDescription() != null && !activity.getDescription().isBlank()) {
+            name.add(Chunk.NEWLINE);
+            name.add(new Chunk(activity.getDescription(), detailFont));
+        }
+        table.addCell(cell(name));
+        
+        table.addCell(cell(new Phrase(activity.getLocation(), cellFont)));
+        table.addCell(cell(new Phrase(formatType(activity), cellFont)));
+        table.addCell(cell(new Phrase(formatNotes(activity), detailFont)));
+    }
+    
+    private PdfPCell cell(Phrase phrase) {
+        PdfPCell cell = new PdfPCell(phrase);
+        cell.setPadding(4);
+        cell.setVerticalAlignment(Element.ALIGN_TOP);
+        return cell;
+    }
+    
+    private String formatTime(Activity activity) {
+        if (activity.getStartTime() != null && activity.getEndTime() != null) {
+            return activity.getStartTime() + " - " + activity.getEndTime();
+        }
+        if (activity.getStartTime() != null) {
+            return activity.getStartTime().toString();
+        }
+        return activity.getTimeSlot() != null ? activity.getTimeSlot().toString() : "";
+    }
+    
+    private String formatType(Activity activity) {
+        String type = activity.getType() != null ? activity.getType().toString().replace('_', ' ') : "";
+        return Boolean.TRUE.equals(activity.getWeatherDependent()) ? type + "\n(weather dependent)" : type;
+    }
+    
+    private String formatNotes(Activity activity) {
+        StringBuilder notes = new StringBuilder();
+        if (activity.getOptimizationReason() != null) {
+            notes.append(activity.getOptimizationReason());
+        }
+        if (activity.getNotes() != null && !activity.getNotes().isBlank()) {
+            if (!notes.isEmpty()) {
+                notes.append('\n');
+            }
+            notes.append(activity.getNotes());
+        }
+        if (Boolean.TRUE.equals(activity.getBookingRequired())) {
+            if (!notes.isEmpty()) {
+                notes.append('\n');
+            }
+            notes.append("Booking required");
+        }
+        return notes.toString();
+    }
+}
\ No newline at end of file
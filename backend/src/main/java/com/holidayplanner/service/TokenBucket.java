@@ -0,0 +1,57 @@
+package com.holidayplanner.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Token bucket rate limiter. Callers reserve a token and are told how long to wait for it, so a burst of callers
+ * is spread out at the refill rate instead of being rejected.
+ */
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double tokensPerNano;
+    
+    private double tokens;
+    private long lastRefillNanos;
+    private long totalWaitNanos;
+    
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        if (capacity < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket needs a capacity of at least 1 and a positive rate");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+    
+    /**
+     * Takes one token and returns how long the caller has to wait before using it. The balance may go negative,
+     * which queues later callers behind the ones that already reserved.
+     */
+    public synchronized Duration reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+        
+        tokens -= 1;
+        if (tokens >= 0) {
+            return Duration.ZERO;
+        }
+        long waitNanos = (long) Math.ceil(-tokens / tokensPerNano);
+        totalWaitNanos += waitNanos;
+        return Duration.ofNanos(waitNanos);
+    }
+    
+    // Completes once a token is available, without blocking a thread while waiting
+    public Mono<Void> acquire() {
+        Duration wait = reserve();
+        return wait.isZero() ? Mono.empty() : Mono.delay(wait).then();
+    }
+    
+    public synchronized Duration getTotalWait() {
+        return Duration.ofNanos(totalWaitNanos);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.config.ItalyCitiesProperties;
+import com.holidayplanner.repository.HolidayPlanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the forecast store ahead of user requests. Each run collects the distinct destinations of weather-enabled
+ * trips inside the forecast window plus the configured Italian cities, fetches their forecasts with bounded
+ * concurrency under a token-bucket rate limit, and bulk-upserts the rows through {@link WeatherService}. Only one
+ * instance runs a pass at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherPrefetchService {
+    
+    private static final String COUNTRY = "IT";
+    private static final int MAX_RECORDED_RUNS = 20;
+    
+    private final WeatherService weatherService;
+    private final HolidayPlanRepository holidayPlanRepository;
+    private final ItalyCitiesProperties italyCitiesProperties;
+    private final ClusterLock clusterLock;
+    
+    @Value("${scheduler.weather-update.forecast-days:5}")
+    private int forecastDays;
+    
+    @Value("${scheduler.weather-update.concurrency:4}")
+    private int concurrency;
+    
+    @Value("${scheduler.weather-update.requests-per-minute:50}")
+    private int requestsPerMinute;
+    
+    @Value("${scheduler.weather-update.burst:5}")
+    private int burst;
+    
+    @Value("${scheduler.weather-update.include-configured-cities:true}")
+    private boolean includeConfiguredCities;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Deque<Map<String, Object>> recentRuns = new ArrayDeque<>();
+    
+    @Scheduled(cron = "${scheduler.weather-update.cron}")
+    public void scheduledPrefetch() {
+        prefetch("scheduled");
+    }
+    
+    /**
+     * Runs one prefetch pass and returns its timings, or {@code null} if a pass is already in progress on this or
+     * another instance.
+     */
+    public Map<String, Object> prefetch(String trigger) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Weather prefetch already running, skipping {} run", trigger);
+            return null;
+        }
+        try {
+            // The cron fires on every instance; one pass per schedule is enough for the shared forecast store
+            Map<String, Object> run = clusterLock.runExclusively("weather-prefetch", () -> runPrefetch(trigger));
+            if (run == null) {
+                log.info("Weather prefetch running on another instance, skipping {} run", trigger);
+            }
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running.get());
+        stats.put("concurrency", concurrency);
+        stats.put("requestsPerMinute", requestsPerMinute);
+        stats.put("forecastDays", forecastDays);
+        synchronized (recentRuns) {
+            stats.put("recentRuns", new ArrayList<>(recentRuns));
+        }
+        return stats;
+    }
+    
+    private Map<String, Object> runPrefetch(String trigger) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        
+        List<String> cities = collectCities();
+        long planningMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        
+        TokenBucket rateLimiter = new TokenBucket(burst, requestsPerMinute / 60.0);
+        AtomicInteger citiesWithData = new AtomicInteger();
+        AtomicInteger rows = new AtomicInteger();
+        
+        long fetchStart = System.nanoTime();
+        Flux.fromIterable(cities)
+                .flatMap(city -> rateLimiter.acquire()
+                        .then(weatherService.getWeatherForecastReactive(city, COUNTRY, forecastDays).count())
+                        .doOnNext(count -> {
+                            if (count > 0) {
+                                citiesWithData.incrementAndGet();
+                                rows.addAndGet(count.intValue());
+                            }
+                        })
+                        .onErrorResume(e -> {
+                            log.warn("Weather prefetch failed for {}: {}", city, e.getMessage());
+                            return Mono.empty();
+                        }), concurrency)
+                .blockLast();
+        long fetchMillis = Duration.ofNanos(System.nanoTime() - fetchStart).toMillis();
+        
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("trigger", trigger);
+        run.put("startedAt", startedAt);
+        run.put("cities", cities.size());
+        run.put("citiesWithData", citiesWithData.get());
+        run.put("citiesWithoutData", cities.size() - citiesWithData.get());
+        run.put("rowsUpserted", rows.get());
+        run.put("planningMillis", planningMillis);
+        run.put("fetchMillis", fetchMillis);
+        run.put("rateLimitWaitMillis", rateLimiter.getTotalWait().toMillis());
+        run.put("totalMillis", Duration.ofNanos(System.nanoTime() - start).toMillis());
+        
+        synchronized (recentRuns) {
+            recentRuns.addFirst(run);
+            if (recentRuns.size() > MAX_RECORDED_RUNS) {
+                recentRuns.removeLast();
+            }
+        }
+        
+        log.info("Weather prefetch ({}) fetched {} of {} cities, {} rows in {} ms", trigger,
+                citiesWithData.get(), cities.size(), rows.get(), run.get("totalMillis"));
+        return run;
+    }
+    
+    // Distinct by case-insensitive name, keeping the first spelling seen
+    private List<String> collectCities() {
+        LocalDate today = LocalDate.now();
+        Map<String, String> cities = new LinkedHashMap<>();
+        
+        for (String destination : holidayPlanRepository.findDestinationsNeedingWeatherForecast(today, today.plusDays(forecastDays - 1))) {
+            if (destination != null && !destination.isBlank()) {
+                cities.putIfAbsent(destination.trim().toLowerCase(Locale.ROOT), destination.trim());
+            }
+        }
+        
+        if (includeConfiguredCities) {
+            for (ItalyCitiesProperties.City city : italyCitiesProperties.getCities()) {
+                cities.putIfAbsent(city.getName().toLowerCase(Locale.ROOT), city.getName());
+            }
+        }
+        
+        return new ArrayList<>(cities.values());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.cache.ForecastCache;
+import com.holidayplanner.model.WeatherData.ForecastType;
+import com.holidayplanner.repository.WeatherDataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the date-partitioned weather_data table in shape: creates the daily partitions for the forecast horizon
+ * ahead of time, compacts aged days into one aggregate row per city, and retires expired days by detaching and
+ * dropping their partitions, so retention never runs a row-by-row DELETE over the table.
+ * <p>
+ * Compaction turns the 3-hourly HOURLY forecast rows of a past day into one DAILY row and the CURRENT observations
+ * of a past day into one HISTORICAL row, so long-term history costs one row per city and day.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherRetentionService {
+    
+    private final WeatherDataRepository weatherDataRepository;
+    private final ForecastCache forecastCache;
+    
+    @Value("${weather.partitions.retention-days:180}")
+    private int retentionDays;
+    
+    @Value("${weather.partitions.create-ahead-days:14}")
+    private int createAheadDays;
+    
+    @Value("${weather.compaction.hourly-after-days:2}")
+    private int hourlyAfterDays;
+    
+    @Value("${weather.compaction.current-after-days:1}")
+    private int currentAfterDays;
+    
+    private volatile Map<String, Object> lastRun = Map.of();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain("startup");
+    }
+    
+    @Scheduled(cron = "${weather.partitions.maintenance-cron}")
+    public void scheduledMaintenance() {
+        maintain("scheduled");
+    }
+    
+    /**
+     * Creates the missing partitions up to the forecast horizon, compacts aged days, then drops the partitions
+     * older than the retention window. Returns the run summary.
+     */
+    public synchronized Map<String, Object> maintain(String trigger) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LocalDate cutoff = today.minusDays(retentionDays);
+        
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("trigger", trigger);
+        run.put("startedAt", startedAt);
+        run.put("cutoff", cutoff);
+        try {
+            int created = weatherDataRepository.createPartitions(today, today.plusDays(createAheadDays));
+            run.put("partitionsCreated", created);
+            
+            LocalDate hourlyBefore = today.minusDays(hourlyAfterDays);
+            LocalDate currentBefore = today.minusDays(currentAfterDays);
+            int hourlyRows = compact(ForecastType.HOURLY, ForecastType.DAILY, cutoff, hourlyBefore);
+            int currentRows = compact(ForecastType.CURRENT, ForecastType.HISTORICAL, cutoff, currentBefore);
+            run.put("hourlyRowsCompacted", hourlyRows);
+            run.put("currentRowsCompacted", currentRows);
+            
+            int dropped = weatherDataRepository.dropPartitionsBefore(cutoff);
+            run.put("partitionsDropped", dropped);
+            
+            // Cached days before the later compaction boundary may hold rows that were just replaced or dropped
+            if (hourlyRows > 0 || currentRows > 0 || dropped > 0) {
+                forecastCache.invalidateBefore(hourlyBefore.isAfter(currentBefore) ? hourlyBefore : currentBefore);
+            }
+            log.info("Weather partition maintenance ({}): {} created, {} hourly and {} current rows compacted, {} dropped before {}",
+                    trigger, created, hourlyRows, currentRows, dropped, cutoff);
+        } catch (Exception e) {
+            run.put("error", e.getMessage());
+            log.error("Weather partition maintenance ({}) failed: {}", trigger, e.getMessage());
+        }
+        run.put("durationMillis", Duration.ofNanos(System.nanoTime() - start).toMillis());
+        lastRun = run;
+        return run;
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Long> partitions = weatherDataRepository.findPartitionRowEstimates();
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("retentionDays", retentionDays);
+        stats.put("createAheadDays", createAheadDays);
+        stats.put("hourlyCompactionAfterDays", hourlyAfterDays);
+        stats.put("currentCompactionAfterDays", currentAfterDays);
+        stats.put("partitionCount", partitions.size());
+        stats.put("estimatedRows", partitions.values().stream().mapToLong(Long::longValue).sum());
+        stats.put("partitions", partitions);
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+    
+    private int compact(ForecastType sourceType, ForecastType targetType, LocalDate from, LocalDate before) {
+        int compacted = 0;
+        // One transaction per day, each touching a single partition
+        for (LocalDate date : weatherDataRepository.findDatesToCompact(sourceType, from, before)) {
+            compacted += weatherDataRepository.compactDay(date, sourceType, targetType);
+        }
+        return compacted;
+    }
+}
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.holidayplanner.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.holidayplanner.cache.ForecastCache;
+import com.holidayplanner.cache.HourlyComfortGrid;
 import com.holidayplanner.model.WeatherData;
 import com.holidayplanner.repository.WeatherDataRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,12 +11,22 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
 
 @Service
 @RequiredArgsConstructor
@@ -22,7 +34,11 @@ import java.util.Optional;
 public class WeatherService {
     
     private final WeatherDataRepository weatherDataRepository;
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient weatherWebClient;
+    private final ForecastCache forecastCache;
+    
+    private final Map<ForecastRequest, Mono<List<WeatherData>>> inFlightForecasts = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedForecastFetches = new AtomicLong();
     
     @Value("${weather.api.key}")
     private String apiKey;
@@ -34,74 +50,127 @@ public class WeatherService {
     private String forecastUrl;
     
     public WeatherData getCurrentWeather(String city, String country) {
-        try {
-            WebClient webClient = webClientBuilder.build();
-            
-            String url = String.format("%s/weather?q=%s,%s&appid=%s&units=metric",
-                    baseUrl, city, country, apiKey);
-            
-            JsonNode response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-            
-            if (response != null) {
-                WeatherData weatherData = parseCurrentWeatherResponse(response, city, country);
-                return saveWeatherData(weatherData);
-            }
-            
-        } catch (WebClientResponseException e) {
-            log.error("Error fetching current weather for {}, {}: {}", city, country, e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error fetching current weather: {}", e.getMessage());
-        }
+        return getCurrentWeatherReactive(city, country).block();
+    }
+    
+    public Mono<WeatherData> getCurrentWeatherReactive(String city, String country) {
+        String url = String.format("%s/weather?q=%s,%s&appid=%s&units=metric",
+                baseUrl, city, country, apiKey);
         
-        return null;
+        return weatherWebClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(response -> parseCurrentWeatherResponse(response, city, country))
+                // JPA persistence is blocking, so it runs off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .map(this::saveWeatherData)
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.error("Error fetching current weather for {}, {}: {}", city, country, e.getMessage());
+                    return Mono.empty();
+                })
+                .onErrorResume(e -> {
+                    log.error("Unexpected error fetching current weather: {}", e.getMessage());
+                    return Mono.empty();
+                });
     }
     
     public List<WeatherData> getWeatherForecast(String city, String country, int days) {
-        try {
-            WebClient webClient = webClientBuilder.build();
-            
-            String url = String.format("%s?q=%s,%s&appid=%s&units=metric&cnt=%d",
-                    forecastUrl, city, country, apiKey, days * 8); // 8 forecasts per day (3-hour intervals)
-            
-            JsonNode response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-            
-            if (response != null) {
-                List<WeatherData> forecasts = parseForecastResponse(response, city, country);
-                return forecasts.stream()
-                        .map(this::saveWeatherData)
-                        .toList();
-            }
-            
-        } catch (WebClientResponseException e) {
-            log.error("Error fetching weather forecast for {}, {}: {}", city, country, e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error fetching weather forecast: {}", e.getMessage());
+        return getWeatherForecastReactive(city, country, days).collectList().block();
+    }
+    
+    public Flux<WeatherData> getWeatherForecastReactive(String city, String country, int days) {
+        // Concurrent callers asking for the same forecast share a single upstream fetch and persistence pass
+        ForecastRequest request = new ForecastRequest(city.toLowerCase(Locale.ROOT), country.toLowerCase(Locale.ROOT), days);
+        // Only the fetch that registered itself may deregister, never a newer fetch for the same request
+        AtomicReference<Mono<List<WeatherData>>> registered = new AtomicReference<>();
+        Mono<List<WeatherData>> candidate = fetchAndSaveWeatherForecast(city, country, days)
+                .doFinally(signal -> inFlightForecasts.remove(request, registered.get()))
+                .cache();
+        registered.set(candidate);
+        Mono<List<WeatherData>> inFlight = inFlightForecasts.putIfAbsent(request, candidate);
+        
+        if (inFlight != null) {
+            coalescedForecastFetches.incrementAndGet();
+            log.debug("Joining in-flight weather forecast fetch for {}, {} ({} days)", city, country, days);
+            return inFlight.flatMapMany(Flux::fromIterable);
         }
         
-        return List.of();
+        return candidate.flatMapMany(Flux::fromIterable);
+    }
+    
+    private Mono<List<WeatherData>> fetchAndSaveWeatherForecast(String city, String country, int days) {
+        String url = String.format("%s?q=%s,%s&appid=%s&units=metric&cnt=%d",
+                forecastUrl, city, country, apiKey, days * 8); // 8 forecasts per day (3-hour intervals)
+        
+        return weatherWebClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(response -> parseForecastResponse(response, city, country))
+                // JPA persistence is blocking, so it runs off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .map(forecasts -> saveWeatherDataBatch(city, country, forecasts))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.error("Error fetching weather forecast for {}, {}: {}", city, country, e.getMessage());
+                    return Mono.just(List.of());
+                })
+                .onErrorResume(e -> {
+                    log.error("Unexpected error fetching weather forecast: {}", e.getMessage());
+                    return Mono.just(List.of());
+                })
+                .defaultIfEmpty(List.of());
     }
     
     public List<WeatherData> getWeatherForDateRange(String city, String country, LocalDate startDate, LocalDate endDate) {
-        // First check if we have cached data
+        List<WeatherData> cachedData = findCachedWeatherForDateRange(city, country, startDate, endDate);
+        if (!cachedData.isEmpty()) {
+            return cachedData;
+        }
+        
+        // If no cached data, fetch from API
+        return getWeatherForecast(city, country, forecastDaysFor(startDate, endDate));
+    }
+    
+    public Mono<List<WeatherData>> getWeatherForDateRangeReactive(String city, String country, LocalDate startDate, LocalDate endDate) {
+        return Mono.fromCallable(() -> findCachedWeatherForDateRange(city, country, startDate, endDate))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cachedData -> cachedData.isEmpty()
+                        ? getWeatherForecastReactive(city, country, forecastDaysFor(startDate, endDate)).collectList()
+                        : Mono.just(cachedData));
+    }
+    
+    private List<WeatherData> findCachedWeatherForDateRange(String city, String country, LocalDate startDate, LocalDate endDate) {
+        // Serve from the in-process forecast cache when every day of the range is present
+        List<WeatherData> inMemoryData = forecastCache.getRange(city, country, startDate, endDate);
+        if (inMemoryData != null && !inMemoryData.isEmpty()) {
+            log.debug("Returning in-memory weather data for {}, {} from {} to {}", city, country, startDate, endDate);
+            return inMemoryData;
+        }
+        
+        // Then check if we have cached data in the database
+        long cacheVersion = forecastCache.currentVersion();
         List<WeatherData> cachedData = weatherDataRepository
                 .findByCityAndCountryAndDateBetweenOrderByDateAscForecastHourAsc(city, country, startDate, endDate);
         
         if (!cachedData.isEmpty()) {
             log.info("Returning cached weather data for {}, {} from {} to {}", city, country, startDate, endDate);
-            return cachedData;
+            forecastCache.putRange(city, country, startDate, endDate, cachedData, cacheVersion);
         }
-        
-        // If no cached data, fetch from API
+        return cachedData;
+    }
+    
+    /**
+     * Returns the hourly comfort grid precomputed when the day's forecast was cached, or {@code null} if the day
+     * is not in the forecast cache.
+     */
+    public HourlyComfortGrid getComfortGrid(String city, String country, LocalDate date) {
+        return forecastCache.getComfortGrid(city, country, date);
+    }
+    
+    private int forecastDaysFor(LocalDate startDate, LocalDate endDate) {
         int days = (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1;
-        return getWeatherForecast(city, country, Math.min(days, 5)); // OpenWeather free tier supports 5 days
+        return Math.min(days, 5); // OpenWeather free tier supports 5 days
     }
     
     public List<WeatherData> getOptimalWeatherForOutdoorActivities(String city, String country, LocalDate date, Double maxTemp, Integer maxHumidity) {
@@ -209,19 +278,19 @@ public class WeatherService {
     }
     
     private List<WeatherData> parseForecastResponse(JsonNode response, String city, String country) {
-        return response.get("list").findValues("dt").stream()
+        return StreamSupport.stream(response.get("list").spliterator(), false)
                 .map(forecast -> {
                     WeatherData weatherData = new WeatherData();
                     weatherData.setCity(city);
                     weatherData.setCountry(country);
                     weatherData.setForecastType(WeatherData.ForecastType.HOURLY);
                     
-                    long timestamp = forecast.asLong();
+                    long timestamp = forecast.get("dt").asLong();
                     LocalDateTime dateTime = LocalDateTime.ofEpochSecond(timestamp, 0, ZoneOffset.UTC);
                     weatherData.setDate(dateTime.toLocalDate());
                     weatherData.setForecastHour(dateTime.getHour());
                     
-                    JsonNode parent = forecast.findParent();
+                    JsonNode parent = forecast;
                     
                     JsonNode main = parent.get("main");
                     if (main != null) {
@@ -357,6 +426,39 @@ public class WeatherService {
         } catch (Exception e) {
             log.error("Error saving weather data: {}", e.getMessage());
             return weatherData;
+        } finally {
+            forecastCache.invalidate(weatherData.getCity(), weatherData.getCountry(), weatherData.getDate());
+        }
+    }
+    
+    private List<WeatherData> saveWeatherDataBatch(String city, String country, List<WeatherData> forecasts) {
+        if (forecasts.isEmpty()) {
+            return forecasts;
+        }
+        
+        LocalDate firstDate = forecasts.stream().map(WeatherData::getDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate lastDate = forecasts.stream().map(WeatherData::getDate).max(LocalDate::compareTo).orElseThrow();
+        
+        try {
+            // One transaction, one JDBC batch: duplicates are resolved by ON CONFLICT instead of a select per row
+            int written = weatherDataRepository.upsertAll(forecasts);
+            log.info("Upserted {} forecast rows for {}, {} from {} to {}", written, city, country, firstDate, lastDate);
+            
+            // Re-read the persisted range once and use it to warm the forecast cache
+            long cacheVersion = forecastCache.currentVersion();
+            List<WeatherData> persisted = weatherDataRepository
+                    .findByCityAndCountryAndDateBetweenOrderByDateAscForecastHourAsc(city, country, firstDate, lastDate);
+            forecastCache.putRange(city, country, firstDate, lastDate, persisted, cacheVersion);
+            
+            return persisted.stream()
+                    .filter(weatherData -> weatherData.getForecastType() == WeatherData.ForecastType.HOURLY)
+                    .toList();
+        } catch (Exception e) {
+            log.error("Error saving weather forecast batch for {}, {}: {}", city, country, e.getMessage());
+            for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+                forecastCache.invalidate(city, country, date);
+            }
+            return forecasts;
         }
     }
     
@@ -381,9 +483,13 @@ public class WeatherService {
         existing.setIndoorActivityScore(newData.getIndoorActivityScore());
     }
     
-    public void cleanupOldWeatherData() {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(7);
-        weatherDataRepository.deleteOldWeatherData(cutoffDate);
-        log.info("Cleaned up weather data older than {}", cutoffDate);
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>(forecastCache.getStatistics());
+        stats.put("inFlightForecastFetches", inFlightForecasts.size());
+        stats.put("coalescedForecastFetches", coalescedForecastFetches.get());
+        return stats;
+    }
+    
+    private record ForecastRequest(String city, String country, int days) {
     }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+-- Baseline schema, equivalent to what ddl-auto=update produced from the entities before migrations were
+-- introduced. Existing databases are baselined at V0 and run it as well, so every statement is IF NOT EXISTS
+-- and only creates what they are missing.
+
+CREATE SEQUENCE IF NOT EXISTS activities_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS weather_data_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS email_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS holiday_plans (
+    id                           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title                        VARCHAR(255) NOT NULL,
+    destination                  VARCHAR(255) NOT NULL,
+    start_date                   DATE         NOT NULL,
+    end_date                     DATE         NOT NULL,
+    user_email                   VARCHAR(255) NOT NULL,
+    status                       VARCHAR(255) NOT NULL,
+    notes                        TEXT,
+    weather_optimization_enabled BOOLEAN,
+    last_weather_update          TIMESTAMP(6),
+    google_calendar_event_id     VARCHAR(255),
+    created_date                 TIMESTAMP(6) NOT NULL,
+    last_modified_date           TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_user_start_id ON holiday_plans (user_email, start_date, id);
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_destination_start_id ON holiday_plans (destination, start_date, id);
+
+CREATE TABLE IF NOT EXISTS activities (
+    id                         BIGINT       NOT NULL PRIMARY KEY,
+    name                       VARCHAR(255) NOT NULL,
+    description                TEXT,
+    date                       DATE         NOT NULL,
+    start_time                 TIME(6),
+    end_time                   TIME(6),
+    type                       VARCHAR(255) NOT NULL,
+    time_slot                  VARCHAR(255) NOT NULL,
+    location                   VARCHAR(255) NOT NULL,
+    is_weather_dependent       BOOLEAN,
+    preferred_weather          VARCHAR(255),
+    min_temperature            FLOAT(53),
+    max_temperature            FLOAT(53),
+    max_humidity               FLOAT(53),
+    avoid_rain                 BOOLEAN,
+    priority_level             INTEGER,
+    estimated_duration_minutes INTEGER,
+    cost_estimate              FLOAT(53),
+    booking_required           BOOLEAN,
+    booking_url                VARCHAR(255),
+    contact_info               VARCHAR(255),
+    notes                      TEXT,
+    ai_optimized               BOOLEAN,
+    optimization_reason        VARCHAR(255),
+    holiday_plan_id            BIGINT       NOT NULL,
+    created_date               TIMESTAMP(6) NOT NULL,
+    last_modified_date         TIMESTAMP(6),
+    CONSTRAINT fk_activities_holiday_plan FOREIGN KEY (holiday_plan_id) REFERENCES holiday_plans (id)
+);
+
+CREATE TABLE IF NOT EXISTS weather_data (
+    id                     BIGINT       NOT NULL PRIMARY KEY,
+    city                   VARCHAR(255) NOT NULL,
+    country                VARCHAR(255) NOT NULL,
+    date                   DATE         NOT NULL,
+    forecast_hour          INTEGER,
+    temperature_celsius    FLOAT(53),
+    feels_like_celsius     FLOAT(53),
+    temperature_min        FLOAT(53),
+    temperature_max        FLOAT(53),
+    humidity_percent       INTEGER,
+    pressure_hpa           FLOAT(53),
+    wind_speed_mps         FLOAT(53),
+    wind_direction_degrees INTEGER,
+    cloudiness_percent     INTEGER,
+    visibility_meters      INTEGER,
+    uv_index               FLOAT(53),
+    weather_main           VARCHAR(255),
+    weather_description    VARCHAR(255),
+    weather_icon           VARCHAR(255),
+    rain_1h_mm             FLOAT(53),
+    rain_3h_mm             FLOAT(53),
+    snow_1h_mm             FLOAT(53),
+    snow_3h_mm             FLOAT(53),
+    sunrise_time           TIMESTAMP(6),
+    sunset_time            TIMESTAMP(6),
+    air_quality_index      INTEGER,
+    forecast_type          VARCHAR(255),
+    data_source            VARCHAR(255),
+    ai_comfort_score       FLOAT(53),
+    outdoor_activity_score FLOAT(53),
+    indoor_activity_score  FLOAT(53),
+    created_date           TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_weather_data_forecast_slot UNIQUE (city, country, date, forecast_hour, forecast_type)
+);
+
+CREATE TABLE IF NOT EXISTS llm_response_cache (
+    prompt_hash  VARCHAR(64)  NOT NULL PRIMARY KEY,
+    model        VARCHAR(255) NOT NULL,
+    temperature  FLOAT(53)    NOT NULL,
+    response     TEXT         NOT NULL,
+    expires_at   TIMESTAMP(6) NOT NULL,
+    created_date TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS optimization_jobs (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    holiday_plan_id      BIGINT       NOT NULL,
+    status               VARCHAR(255) NOT NULL,
+    stage                VARCHAR(255),
+    total_days           INTEGER,
+    completed_days       INTEGER,
+    optimized_activities INTEGER,
+    error_message        TEXT,
+    attempts             INTEGER,
+    started_at           TIMESTAMP(6),
+    completed_at         TIMESTAMP(6),
+    created_date         TIMESTAMP(6) NOT NULL,
+    last_modified_date   TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_optimization_jobs_plan_status ON optimization_jobs (holiday_plan_id, status);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id                BIGINT       NOT NULL PRIMARY KEY,
+    message_type      VARCHAR(255) NOT NULL,
+    deduplication_key VARCHAR(255),
+    recipient         VARCHAR(255) NOT NULL,
+    subject           VARCHAR(255) NOT NULL,
+    html_body         TEXT         NOT NULL,
+    status            VARCHAR(255) NOT NULL,
+    attempts          INTEGER      NOT NULL,
+    next_attempt_at   TIMESTAMP(6) NOT NULL,
+    last_error        TEXT,
+    sent_at           TIMESTAMP(6),
+    created_date      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_email_outbox_deduplication_key UNIQUE (deduplication_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
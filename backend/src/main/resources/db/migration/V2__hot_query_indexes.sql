@@ -0,0 +1,60 @@
+-- Indexes for the query shapes the repositories run on every request or scheduled job.
+-- Plain CREATE INDEX keeps the migration transactional; on a large existing table, create the index by hand
+-- with CONCURRENTLY first and this migration becomes a no-op.
+
+-- weather_data: the unique slot constraint already covers (city, country, date, forecast_hour, forecast_type)
+-- lookups. Most scoring queries also pin forecast_type, so they get narrower partial indexes.
+CREATE INDEX IF NOT EXISTS idx_weather_data_hourly_slot
+    ON weather_data (city, country, date, forecast_hour)
+    WHERE forecast_type = 'HOURLY';
+
+CREATE INDEX IF NOT EXISTS idx_weather_data_daily
+    ON weather_data (city, country, date)
+    WHERE forecast_type = 'DAILY';
+
+-- Retention cleanup (deleteOldWeatherData)
+CREATE INDEX IF NOT EXISTS idx_weather_data_created_date ON weather_data (created_date);
+
+-- findDistinctCitiesByCountry
+CREATE INDEX IF NOT EXISTS idx_weather_data_country_city ON weather_data (country, city);
+
+-- activities: per-plan and per-day listings ordered by start time; also serves the foreign key
+CREATE INDEX IF NOT EXISTS idx_activities_plan_date_start
+    ON activities (holiday_plan_id, date, start_time);
+
+-- findWeatherDependentActivities
+CREATE INDEX IF NOT EXISTS idx_activities_plan_weather_dependent
+    ON activities (holiday_plan_id)
+    WHERE is_weather_dependent = true;
+
+-- holiday_plans: weather optimization candidates and the weather prefetch destination scan
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_weather_enabled_start
+    ON holiday_plans (start_date, end_date)
+    WHERE weather_optimization_enabled = true;
+
+-- Daily itinerary and reminder mailer pages. Not partial on status: the mailer binds the excluded status as a
+-- parameter, which a generic plan cannot match against a partial index predicate.
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_start_date_id ON holiday_plans (start_date, id);
+
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_end_date_id ON holiday_plans (end_date, id);
+
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_google_calendar_event
+    ON holiday_plans (google_calendar_event_id)
+    WHERE google_calendar_event_id IS NOT NULL;
+
+-- email_outbox: the dispatcher only ever claims pending rows, and the purge only touches sent ones
+DROP INDEX IF EXISTS idx_email_outbox_status_next_attempt;
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending
+    ON email_outbox (next_attempt_at, id)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_sent_at
+    ON email_outbox (sent_at)
+    WHERE status = 'SENT';
+
+-- llm_response_cache: expiry purge
+CREATE INDEX IF NOT EXISTS idx_llm_response_cache_expires_at ON llm_response_cache (expires_at);
+
+-- optimization_jobs: jobs to resume on startup (statuses are bound as parameters, so no partial index)
+CREATE INDEX IF NOT EXISTS idx_optimization_jobs_status ON optimization_jobs (status);
@@ -0,0 +1,38 @@
+-- Data constraints. Added NOT VALID so existing rows that break them do not block the migration; new and
+-- updated rows are checked from now on. Run VALIDATE CONSTRAINT once old data has been cleaned up.
+ALTER TABLE holiday_plans
+    ADD CONSTRAINT ck_holiday_plans_date_range CHECK (end_date >= start_date) NOT VALID;
+
+ALTER TABLE activities
+    ADD CONSTRAINT ck_activities_time_range CHECK (start_time IS NULL OR end_time IS NULL OR end_time >= start_time) NOT VALID;
+
+ALTER TABLE activities
+    ADD CONSTRAINT ck_activities_priority_level CHECK (priority_level IS NULL OR priority_level BETWEEN 1 AND 10) NOT VALID;
+
+ALTER TABLE weather_data
+    ADD CONSTRAINT ck_weather_data_forecast_hour CHECK (forecast_hour IS NULL OR forecast_hour BETWEEN 0 AND 23) NOT VALID;
+
+-- Deleting a plan removes its activities in the database as well, so bulk deletes do not depend on the ORM cascade
+ALTER TABLE activities DROP CONSTRAINT IF EXISTS fk_activities_holiday_plan;
+DO $$
+DECLARE
+    fk_name TEXT;
+BEGIN
+    -- ddl-auto named the foreign key with a generated hash; drop it whatever it is called
+    FOR fk_name IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'activities'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE activities DROP CONSTRAINT %I', fk_name);
+    END LOOP;
+END $$;
+
+ALTER TABLE activities
+    ADD CONSTRAINT fk_activities_holiday_plan FOREIGN KEY (holiday_plan_id)
+        REFERENCES holiday_plans (id) ON DELETE CASCADE;
+
+-- activities and weather_data switched from IDENTITY to pooled sequences after rows already existed. Move the
+-- sequences past the highest id so the first allocated block cannot overlap existing rows.
+SELECT setval('activities_seq', (SELECT COALESCE(MAX(id), 0) FROM activities) + 50);
+SELECT setval('weather_data_seq', (SELECT COALESCE(MAX(id), 0) FROM weather_data) + 50);
+SELECT setval('email_outbox_seq', (SELECT COALESCE(MAX(id), 0) FROM email_outbox) + 50);
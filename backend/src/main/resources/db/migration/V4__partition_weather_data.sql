@@ -0,0 +1,87 @@
+-- Range-partitions weather_data by forecast date, one partition per day plus a default partition for dates
+-- without one. Retention detaches and drops whole partitions instead of deleting rows, and date predicates
+-- prune the partitions a query reads.
+
+-- Move the current table aside; its index-backed constraint names must be free for the new table
+ALTER TABLE weather_data RENAME TO weather_data_unpartitioned;
+ALTER INDEX IF EXISTS weather_data_pkey RENAME TO weather_data_unpartitioned_pkey;
+ALTER TABLE weather_data_unpartitioned RENAME CONSTRAINT uk_weather_data_forecast_slot TO uk_weather_data_unpartitioned_slot;
+DROP INDEX IF EXISTS idx_weather_data_hourly_slot;
+DROP INDEX IF EXISTS idx_weather_data_daily;
+DROP INDEX IF EXISTS idx_weather_data_created_date;
+DROP INDEX IF EXISTS idx_weather_data_country_city;
+
+-- Primary and unique keys of a partitioned table must include the partition key
+CREATE TABLE weather_data (LIKE weather_data_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (date);
+ALTER TABLE weather_data ADD CONSTRAINT weather_data_pkey PRIMARY KEY (id, date);
+ALTER TABLE weather_data ADD CONSTRAINT uk_weather_data_forecast_slot UNIQUE (city, country, date, forecast_hour, forecast_type);
+ALTER TABLE weather_data ADD CONSTRAINT ck_weather_data_forecast_hour CHECK (forecast_hour IS NULL OR forecast_hour BETWEEN 0 AND 23);
+
+CREATE TABLE weather_data_default PARTITION OF weather_data DEFAULT;
+
+-- Creates the partition for one day if it does not exist yet. Rows for that day that already landed in the
+-- default partition are moved into the new partition before it is attached. The table copies the parent's CHECK
+-- constraints, which ATTACH PARTITION requires. Returns true if it was created.
+CREATE OR REPLACE FUNCTION create_weather_data_partition(partition_day DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'weather_data_p' || to_char(partition_day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    
+    EXECUTE format('CREATE TABLE %I (LIKE weather_data INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('INSERT INTO %I SELECT * FROM weather_data_default WHERE date = $1', partition_name) USING partition_day;
+    DELETE FROM weather_data_default WHERE date = partition_day;
+    EXECUTE format('ALTER TABLE weather_data ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, partition_day, partition_day + 1);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches and drops every daily partition older than the cutoff and clears expired rows from the default
+-- partition. Returns the number of partitions dropped.
+CREATE OR REPLACE FUNCTION drop_weather_data_partitions_before(cutoff DATE) RETURNS INTEGER AS $$
+DECLARE
+    partition RECORD;
+    dropped INTEGER := 0;
+BEGIN
+    FOR partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'weather_data'::regclass
+          AND c.relname ~ '^weather_data_p[0-9]{8}$'
+          AND to_date(substr(c.relname, 15), 'YYYYMMDD') < cutoff
+    LOOP
+        EXECUTE format('ALTER TABLE weather_data DETACH PARTITION %I', partition.relname);
+        EXECUTE format('DROP TABLE %I', partition.relname);
+        dropped := dropped + 1;
+    END LOOP;
+    
+    DELETE FROM weather_data_default WHERE date < cutoff;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the retained week and the forecast horizon; older rows go to the default partition and are
+-- cleared by the first retention run
+SELECT create_weather_data_partition(day::DATE)
+FROM generate_series(CURRENT_DATE - 7, CURRENT_DATE + 14, INTERVAL '1 day') AS day;
+
+INSERT INTO weather_data SELECT * FROM weather_data_unpartitioned;
+DROP TABLE weather_data_unpartitioned;
+
+ALTER SEQUENCE weather_data_seq OWNED BY weather_data.id;
+
+-- Hot-path indexes from V2, now declared on the parent so every partition gets them. created_date is gone:
+-- retention no longer filters on it.
+CREATE INDEX idx_weather_data_hourly_slot
+    ON weather_data (city, country, date, forecast_hour)
+    WHERE forecast_type = 'HOURLY';
+
+CREATE INDEX idx_weather_data_daily
+    ON weather_data (city, country, date)
+    WHERE forecast_type = 'DAILY';
+
+CREATE INDEX idx_weather_data_country_city ON weather_data (country, city);
@@ -0,0 +1,8 @@
+-- Columns for the DAILY and HISTORICAL rows written by weather compaction. Hourly rows keep rain and snow per
+-- slot in rain_3h_mm/snow_3h_mm; an aggregate carries the day total and the number of rows it replaced.
+ALTER TABLE weather_data ADD COLUMN IF NOT EXISTS rain_total_mm FLOAT(53);
+ALTER TABLE weather_data ADD COLUMN IF NOT EXISTS snow_total_mm FLOAT(53);
+ALTER TABLE weather_data ADD COLUMN IF NOT EXISTS sample_count INTEGER;
+
+-- Compaction looks up the days that still hold rows of a given type
+CREATE INDEX IF NOT EXISTS idx_weather_data_type_date ON weather_data (forecast_type, date);
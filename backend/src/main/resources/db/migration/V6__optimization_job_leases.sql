@@ -0,0 +1,25 @@
+-- Optimization jobs are shared by every application instance. The instance that queues or runs a job holds a
+-- lease on it and keeps renewing it; a job whose lease ran out is taken over by another instance.
+ALTER TABLE optimization_jobs ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(255);
+ALTER TABLE optimization_jobs ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP(6);
+
+-- At most one queued or running job per plan, so concurrent submits cannot start a second run. Duplicates that
+-- such races already left behind are failed first, keeping the newest.
+UPDATE optimization_jobs j
+SET status = 'FAILED',
+    error_message = 'Superseded by a newer optimization job for the same plan',
+    completed_at = now()
+WHERE j.status IN ('QUEUED', 'RUNNING')
+  AND EXISTS (SELECT 1 FROM optimization_jobs newer
+              WHERE newer.holiday_plan_id = j.holiday_plan_id
+                AND newer.status IN ('QUEUED', 'RUNNING')
+                AND newer.id > j.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_optimization_jobs_active_plan
+    ON optimization_jobs (holiday_plan_id)
+    WHERE status IN ('QUEUED', 'RUNNING');
+
+-- Jobs to take over: active jobs whose lease has expired
+CREATE INDEX IF NOT EXISTS idx_optimization_jobs_active_lease
+    ON optimization_jobs (lease_expires_at)
+    WHERE status IN ('QUEUED', 'RUNNING');
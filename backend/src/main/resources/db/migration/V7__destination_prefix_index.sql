@@ -0,0 +1,7 @@
+-- The destination filter is a prefix LIKE ('Rom%'). A default-collation btree can only serve LIKE under the C
+-- locale, so the index is rebuilt with varchar_pattern_ops, which compares character by character. Equality
+-- lookups on destination use it as well.
+DROP INDEX IF EXISTS idx_holiday_plans_destination_start_id;
+
+CREATE INDEX IF NOT EXISTS idx_holiday_plans_destination_prefix
+    ON holiday_plans (destination varchar_pattern_ops, start_date, id);
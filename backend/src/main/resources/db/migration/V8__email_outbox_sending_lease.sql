@@ -0,0 +1,28 @@
+-- The dispatcher claims a batch by marking it SENDING with a lease in a short transaction and talks to the SMTP
+-- server outside of it. claim_token identifies the claim, so only its owner records the outcome; a batch whose
+-- lease ran out (the dispatcher died mid-send) is claimed again.
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS claim_token VARCHAR(36);
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP(6);
+
+-- ddl-auto created the status column with an unnamed CHECK listing the enum values of that time, which would
+-- reject SENDING; replace it whatever it is called
+DO $$
+DECLARE
+    check_name TEXT;
+BEGIN
+    FOR check_name IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'email_outbox'::regclass AND contype = 'c'
+          AND pg_get_constraintdef(oid) LIKE '%status%'
+    LOOP
+        EXECUTE format('ALTER TABLE email_outbox DROP CONSTRAINT %I', check_name);
+    END LOOP;
+END $$;
+
+ALTER TABLE email_outbox
+    ADD CONSTRAINT ck_email_outbox_status CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'FAILED'));
+
+-- Claims whose lease has expired
+CREATE INDEX IF NOT EXISTS idx_email_outbox_sending_lease
+    ON email_outbox (lease_expires_at)
+    WHERE status = 'SENDING';
@@ -0,0 +1,5 @@
+-- Given-up outbox messages are purged after the same retention window as delivered ones. A FAILED row's
+-- next_attempt_at is the time it was given up.
+CREATE INDEX IF NOT EXISTS idx_email_outbox_failed
+    ON email_outbox (next_attempt_at)
+    WHERE status = 'FAILED';
@@ -0,0 +1,165 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.cache.ActivityIntervalTree.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityIntervalTreeTest {
+    
+    // The day slots ActivityOptimizationService.bestFreeSlot picks from
+    private static final int[][] DAY_SLOTS = {{8, 12}, {12, 17}, {17, 20}};
+    
+    private final ActivityIntervalTree tree = new ActivityIntervalTree();
+    
+    // Brute-force reference: every interval currently in the tree
+    private final List<Interval> inserted = new ArrayList<>();
+    
+    @Test
+    void staysBalancedWhileInsertingAndRemovingInOrder() {
+        // Ascending starts force a rotation on almost every insert
+        for (int minute = 0; minute < 600; minute += 5) {
+            insert(minute, minute, minute + 30);
+        }
+        assertInvariants();
+        
+        // Removing from one side forces rotations the other way
+        for (int minute = 0; minute < 300; minute += 5) {
+            remove(minute, minute, minute + 30);
+        }
+        assertInvariants();
+        assertMatchesBruteForce();
+    }
+    
+    @Test
+    void matchesBruteForceUnderRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        for (int step = 0; step < 2000; step++) {
+            if (!inserted.isEmpty() && random.nextInt(3) == 0) {
+                Interval victim = inserted.get(random.nextInt(inserted.size()));
+                assertThat(tree.remove(victim)).isTrue();
+                inserted.remove(victim);
+            } else {
+                int start = random.nextInt(23 * 60);
+                insert(step, start, start + 1 + random.nextInt(Math.min(180, 24 * 60 - 1 - start)));
+            }
+            if (step % 100 == 0) {
+                assertInvariants();
+                assertMatchesBruteForce();
+            }
+        }
+        assertInvariants();
+        assertMatchesBruteForce();
+    }
+    
+    @Test
+    void keepsActivitiesWithIdenticalStartTimes() {
+        insert(1, 600, 660);
+        insert(2, 600, 720);
+        insert(3, 600, 630);
+        assertInvariants();
+        
+        assertThat(ids(tree.findOverlapping(time(650), time(700), null))).containsExactly(1L, 2L);
+        
+        remove(2, 600, 720);
+        assertInvariants();
+        assertThat(ids(tree.findOverlapping(time(650), time(700), null))).containsExactly(1L);
+        assertThat(tree.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void backToBackActivitiesDoNotOverlap() {
+        insert(1, 540, 600);
+        insert(2, 660, 720);
+        
+        assertThat(tree.findOverlapping(time(600), time(660), null)).isEmpty();
+        assertThat(ids(tree.findOverlapping(time(599), time(661), null))).containsExactly(1L, 2L);
+        assertMatchesBruteForce();
+    }
+    
+    @Test
+    void leavesOutExcludedActivity() {
+        insert(1, 540, 660);
+        insert(2, 600, 720);
+        
+        assertThat(ids(tree.findOverlapping(time(600), time(630), 1L))).containsExactly(2L);
+        assertThat(ids(tree.findOverlapping(time(540), time(600), 1L))).isEmpty();
+    }
+    
+    @Test
+    void removingUnknownIntervalLeavesTreeUnchanged() {
+        insert(1, 540, 600);
+        
+        assertThat(tree.remove(Interval.of(2L, "2", time(540), time(600)))).isFalse();
+        assertThat(tree.size()).isEqualTo(1);
+        assertInvariants();
+    }
+    
+    @Test
+    void noDaySlotIsFreeWhenEverySlotIsBooked() {
+        insert(1, 11 * 60, 13 * 60);
+        insert(2, 16 * 60 + 30, 18 * 60);
+        
+        assertThat(freeSlots(null)).isEmpty();
+        // The activity being moved does not block the slots it currently occupies
+        assertThat(freeSlots(2L)).containsExactly(2);
+        assertThat(freeSlots(1L)).containsExactly(0);
+    }
+    
+    // Mirrors the filter in ActivityOptimizationService.bestFreeSlot
+    private List<Integer> freeSlots(Long movedActivityId) {
+        return IntStream.range(0, DAY_SLOTS.length)
+                .filter(i -> tree.findOverlapping(LocalTime.of(DAY_SLOTS[i][0], 0), LocalTime.of(DAY_SLOTS[i][1], 0),
+                        movedActivityId).isEmpty())
+                .boxed()
+                .toList();
+    }
+    
+    private void assertInvariants() {
+        tree.checkInvariants();
+        assertThat(tree.size()).isEqualTo(inserted.size());
+        // AVL height bound: h < 1.45 * log2(n + 2)
+        assertThat((double) tree.height()).isLessThan(1.45 * Math.log(inserted.size() + 2) / Math.log(2));
+    }
+    
+    private void assertMatchesBruteForce() {
+        for (int start = 0; start < 24 * 60 - 15; start += 15) {
+            for (int length : new int[]{1, 15, 60, 240}) {
+                LocalTime from = time(start);
+                LocalTime to = time(Math.min(start + length, 24 * 60 - 1));
+                Long excluded = inserted.isEmpty() ? null : inserted.get(start % inserted.size()).activityId();
+                
+                List<Interval> expected = inserted.stream()
+                        .filter(interval -> interval.startTime().isBefore(to) && interval.endTime().isAfter(from))
+                        .filter(interval -> !Objects.equals(interval.activityId(), excluded))
+                        .sorted(Comparator.comparing(Interval::startTime).thenComparing(Interval::activityId))
+                        .toList();
+                assertThat(tree.findOverlapping(from, to, excluded)).containsExactlyElementsOf(expected);
+            }
+        }
+    }
+    
+    private void insert(long id, int startMinute, int endMinute) {
+        Interval interval = Interval.of(id, String.valueOf(id), time(startMinute), time(endMinute));
+        tree.insert(interval);
+        inserted.add(interval);
+    }
+    
+    private void remove(long id, int startMinute, int endMinute) {
+        Interval interval = Interval.of(id, String.valueOf(id), time(startMinute), time(endMinute));
+        assertThat(tree.remove(interval)).isTrue();
+        inserted.remove(interval);
+    }
+    
+    private static List<Long> ids(List<Interval> intervals) {
+        return intervals.stream().map(Interval::activityId).toList();
+    }
+    
+    private static LocalTime time(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.model.WeatherData;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ForecastCacheTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+    
+    private final ForecastCache cache = new ForecastCache(60, 100);
+    
+    @Test
+    void dropsRangeLoadedBeforeAnInvalidation() {
+        long version = cache.currentVersion();
+        List<WeatherData> loaded = List.of(row("Rome", 12, 20.0));
+        
+        // A concurrent save invalidates the day after the rows were read but before they are cached
+        cache.invalidate("Rome", "IT", DAY);
+        cache.putRange("Rome", "IT", DAY, DAY, loaded, version);
+        
+        assertThat(cache.getDay("Rome", "IT", DAY)).isNull();
+        assertThat(cache.getStatistics().get("stalePutsDropped")).isEqualTo(1L);
+    }
+    
+    @Test
+    void matchesCityAndCountryCaseInsensitively() {
+        cache.putRange("Rome", "IT", DAY, DAY, List.of(row("Rome", 12, 20.0)), cache.currentVersion());
+        
+        assertThat(cache.get("ROME", "it", DAY, 12)).isPresent();
+        
+        cache.invalidate("rome", "it", DAY);
+        assertThat(cache.getDay("Rome", "IT", DAY)).isNull();
+    }
+    
+    @Test
+    void doesNotShareCachedRowsWithCallers() {
+        WeatherData loaded = row("Rome", 12, 20.0);
+        cache.putRange("Rome", "IT", DAY, DAY, List.of(loaded), cache.currentVersion());
+        
+        loaded.setTemperatureCelsius(35.0);
+        cache.get("Rome", "IT", DAY, 12).orElseThrow().setTemperatureCelsius(40.0);
+        cache.getDay("Rome", "IT", DAY).get(0).setTemperatureCelsius(45.0);
+        
+        assertThat(cache.get("Rome", "IT", DAY, 12).orElseThrow().getTemperatureCelsius()).isEqualTo(20.0);
+    }
+    
+    @Test
+    void countsOneHitOrMissPerRead() {
+        cache.putRange("Rome", "IT", DAY, DAY.plusDays(1), List.of(row("Rome", 12, 20.0)), cache.currentVersion());
+        
+        // The optimizer reads a day's forecast and then its comfort grid: one hit
+        cache.getRange("Rome", "IT", DAY, DAY.plusDays(1));
+        cache.getComfortGrid("Rome", "IT", DAY);
+        // A range with one uncached day: one miss, not a hit for each cached day before it
+        cache.getRange("Rome", "IT", DAY, DAY.plusDays(2));
+        
+        assertThat(cache.getStatistics()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+    
+    private static WeatherData row(String city, int hour, double temperature) {
+        WeatherData row = new WeatherData();
+        row.setCity(city);
+        row.setCountry("IT");
+        row.setDate(DAY);
+        row.setForecastHour(hour);
+        row.setTemperatureCelsius(temperature);
+        return row;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.holidayplanner.cache;
+
+import com.holidayplanner.dto.ActivityStatisticsRow;
+import com.holidayplanner.model.Activity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlanStatisticsCacheTest {
+    
+    private static final Long PLAN_ID = 1L;
+    private static final PlanStatisticsCache.ActivityFacts CULTURAL_VISIT = new PlanStatisticsCache.ActivityFacts(
+            Activity.ActivityType.CULTURAL, Activity.TimeSlot.MORNING, false, false, 20, 120);
+    
+    private final PlanStatisticsCache cache = new PlanStatisticsCache(100, 10);
+    
+    // What a load reads from the database: the number of committed activities
+    private final AtomicLong committedActivities = new AtomicLong(1);
+    
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+    
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+    
+    @Test
+    void appliesCommittedDeltaToCachedStatistics() {
+        load();
+        
+        cache.activityAdded(PLAN_ID, CULTURAL_VISIT);
+        committedActivities.incrementAndGet();
+        commit();
+        
+        assertThat(load().get("totalActivities")).isEqualTo(2L);
+        assertThat(cache.getStatistics().get("misses")).isEqualTo(1L);
+    }
+    
+    @Test
+    void doesNotCacheLoadBetweenCommitAndDelta() throws Exception {
+        cache.activityAdded(PLAN_ID, CULTURAL_VISIT);
+        
+        // The database commit is visible to other sessions before afterCommit applies the delta
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        committedActivities.incrementAndGet();
+        Object concurrentLoad = CompletableFuture.supplyAsync(() -> load().get("totalActivities")).get();
+        
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        
+        assertThat(concurrentLoad).isEqualTo(2L);
+        assertThat(load().get("totalActivities")).isEqualTo(2L);
+    }
+    
+    @Test
+    void dropsDeltaOfRolledBackTransaction() {
+        load();
+        
+        cache.activityAdded(PLAN_ID, CULTURAL_VISIT);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        
+        assertThat(load().get("totalActivities")).isEqualTo(1L);
+    }
+    
+    @Test
+    void reloadsExpiredSnapshot() throws Exception {
+        PlanStatisticsCache expiringCache = new PlanStatisticsCache(100, 0);
+        expiringCache.getOrLoad(PLAN_ID, this::source);
+        
+        // Committed through another instance, so no delta reaches this cache
+        committedActivities.incrementAndGet();
+        Thread.sleep(1);
+        
+        assertThat(expiringCache.getOrLoad(PLAN_ID, this::source).get("totalActivities")).isEqualTo(2L);
+        assertThat(expiringCache.getStatistics().get("expirations")).isEqualTo(1L);
+    }
+    
+    private Map<String, Object> load() {
+        return cache.getOrLoad(PLAN_ID, this::source);
+    }
+    
+    private PlanStatisticsCache.Source source() {
+        return new PlanStatisticsCache.Source(LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 3),
+                List.of(new ActivityStatisticsRow(Activity.ActivityType.CULTURAL, Activity.TimeSlot.MORNING,
+                        committedActivities.get(), 0L, 0L, 20.0 * committedActivities.get(), 120L * committedActivities.get())));
+    }
+    
+    private void commit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    }
+}
\ No newline at end of file
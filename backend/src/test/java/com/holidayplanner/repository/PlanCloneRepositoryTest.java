@@ -0,0 +1,133 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.HolidayPlan;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the plan clone statements against migrated PostgreSQL, next to Hibernate inserting activities through the
+ * pooled sequence optimizer in the same session.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PlanCloneRepositoryTest {
+    
+    private static final LocalDate START = LocalDate.now().plusDays(30);
+    
+    // Includes a duplicate email, which must still get a copy of its own in its position
+    private static final String[] EMAILS = {"ann@example.com", "bob@example.com", "ann@example.com", "cid@example.com"};
+    
+    @Autowired
+    private HolidayPlanRepository holidayPlanRepository;
+    
+    @Autowired
+    private ActivityRepository activityRepository;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @ParameterizedTest(name = "{0} activities")
+    @ValueSource(ints = {0, 1, 50, 51})
+    void clonesPlanForEveryUserInOrderWithoutIdCollisions(int activityCount) {
+        HolidayPlan source = holidayPlanRepository.save(plan("owner@example.com"));
+        // Saved through Hibernate, so its pooled optimizer is partway through an id block when the copies are made
+        activityRepository.saveAll(activities(source, activityCount));
+        entityManager.flush();
+        
+        long sequenceBefore = activitySequence();
+        List<Long> clonedPlanIds = holidayPlanRepository.insertDraftCopies(source.getId(), "Copy", EMAILS);
+        int copied = activityRepository.copyActivitiesToPlans(source.getId(), clonedPlanIds.toArray(Long[]::new));
+        
+        assertThat(clonedPlanIds).hasSize(EMAILS.length).doesNotHaveDuplicates().doesNotContain(source.getId());
+        List<String> emailsByPosition = clonedPlanIds.stream()
+                .map(id -> jdbcTemplate.queryForObject("SELECT user_email FROM holiday_plans WHERE id = ?", String.class, id))
+                .toList();
+        assertThat(emailsByPosition).containsExactly(EMAILS);
+        
+        assertThat(copied).isEqualTo(activityCount * EMAILS.length);
+        // One sequence value per 50 copied rows, not one per row
+        assertThat(activitySequence() - sequenceBefore).isEqualTo(50L * ((copied + 49) / 50));
+        for (Long planId : clonedPlanIds) {
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM activities WHERE holiday_plan_id = ?", Integer.class, planId)).isEqualTo(activityCount);
+        }
+        
+        // Entity inserts after the copy continue the optimizer's block and then take new ones; neither may hit a
+        // copied id
+        activityRepository.saveAll(activities(source, 60));
+        entityManager.flush();
+        
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM activities WHERE holiday_plan_id = ?", Integer.class, source.getId())).isEqualTo(activityCount + 60);
+    }
+    
+    private long activitySequence() {
+        return jdbcTemplate.queryForObject("SELECT CASE WHEN is_called THEN last_value ELSE last_value - 50 END FROM activities_seq", Long.class);
+    }
+    
+    private static HolidayPlan plan(String userEmail) {
+        HolidayPlan plan = new HolidayPlan();
+        plan.setTitle("Rome");
+        plan.setDestination("Rome");
+        plan.setStartDate(START);
+        plan.setEndDate(START.plusDays(4));
+        plan.setUserEmail(userEmail);
+        return plan;
+    }
+    
+    private static List<Activity> activities(HolidayPlan plan, int count) {
+        List<Activity> activities = new ArrayList<>();
+        IntStream.range(0, count).forEach(i -> {
+            Activity activity = new Activity();
+            activity.setName("Activity " + i);
+            activity.setDate(START.plusDays(i % 5));
+            activity.setType(Activity.ActivityType.SIGHTSEEING);
+            activity.setTimeSlot(Activity.TimeSlot.MORNING);
+            activity.setLocation("Rome");
+            activity.setHolidayPlan(plan);
+            activities.add(activity);
+        });
+        return activities;
+    }
+    
+    @Configuration
+    @EnableJpaAuditing
+    @EntityScan(basePackageClasses = HolidayPlan.class)
+    @EnableJpaRepositories(basePackageClasses = HolidayPlanRepository.class)
+    static class Config {
+        
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+        
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
\ No newline at end of file
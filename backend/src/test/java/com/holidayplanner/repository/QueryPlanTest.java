@@ -0,0 +1,130 @@
+package com.holidayplanner.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Query plan regression check: runs EXPLAIN for the hot repository query shapes against a database built by the
+ * Flyway migrations and fails if any of them falls back to a sequential scan on its main table.
+ * <p>
+ * Sequential scans are disabled for the session, so on the empty database the planner still picks an index
+ * whenever one matches the query shape; a "Seq Scan" in the plan means no usable index exists.
+ */
+class QueryPlanTest {
+    
+    private static final Pattern WEATHER_PARTITION = Pattern.compile(" on (weather_data_(p\\d{8}|default))");
+    
+    private static EmbeddedPostgres postgres;
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    
+    @BeforeAll
+    static void migrate() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.start();
+        // A linguistic collation like production databases have; under the C locale any btree serves LIKE prefixes
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute(
+                "CREATE DATABASE query_plans LOCALE_PROVIDER icu ICU_LOCALE 'en-US' LOCALE 'C' TEMPLATE template0");
+        DataSource database = postgres.getDatabase("postgres", "query_plans");
+        Flyway.configure()
+                .dataSource(database)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        
+        dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET enable_seqscan = off");
+    }
+    
+    @AfterAll
+    static void stop() throws IOException {
+        dataSource.destroy();
+        postgres.close();
+    }
+    
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                // WeatherDataRepository
+                arguments("weather slot lookup", "weather_data",
+                        "SELECT * FROM weather_data WHERE city = 'Rome' AND country = 'IT' AND date = CURRENT_DATE AND forecast_hour = 12"),
+                arguments("weather date range", "weather_data",
+                        "SELECT * FROM weather_data WHERE city = 'Rome' AND country = 'IT' AND date BETWEEN CURRENT_DATE AND CURRENT_DATE + 4 ORDER BY date, forecast_hour"),
+                arguments("hourly scoring", "weather_data",
+                        "SELECT * FROM weather_data WHERE city = 'Rome' AND country = 'IT' AND date = CURRENT_DATE AND forecast_type = 'HOURLY' AND outdoor_activity_score >= 60 ORDER BY outdoor_activity_score DESC"),
+                arguments("daily period", "weather_data",
+                        "SELECT * FROM weather_data WHERE city = 'Rome' AND country = 'IT' AND date >= CURRENT_DATE AND date <= CURRENT_DATE + 7 AND forecast_type = 'DAILY'"),
+                arguments("distinct cities", "weather_data",
+                        "SELECT DISTINCT city FROM weather_data WHERE country = 'IT'"),
+                arguments("compaction days", "weather_data",
+                        "SELECT DISTINCT date FROM weather_data WHERE forecast_type = 'HOURLY' AND date >= CURRENT_DATE - 180 AND date < CURRENT_DATE - 2 ORDER BY date"),
+                
+                // ActivityRepository
+                arguments("plan activities", "activities",
+                        "SELECT * FROM activities WHERE holiday_plan_id = 1 ORDER BY date, start_time"),
+                arguments("day activities", "activities",
+                        "SELECT * FROM activities WHERE holiday_plan_id = 1 AND date = CURRENT_DATE ORDER BY start_time"),
+                arguments("mailer day activities", "activities",
+                        "SELECT * FROM activities WHERE holiday_plan_id IN (1, 2, 3) AND date = CURRENT_DATE ORDER BY holiday_plan_id, start_time, id"),
+                arguments("weather dependent", "activities",
+                        "SELECT * FROM activities WHERE holiday_plan_id = 1 AND is_weather_dependent = true"),
+                
+                // HolidayPlanRepository
+                arguments("user plans", "holiday_plans",
+                        "SELECT * FROM holiday_plans WHERE user_email = 'user@example.com' AND start_date >= CURRENT_DATE ORDER BY start_date, id"),
+                arguments("weather optimization candidates", "holiday_plans",
+                        "SELECT * FROM holiday_plans WHERE weather_optimization_enabled = true AND start_date >= CURRENT_DATE"),
+                arguments("reminder page", "holiday_plans",
+                        "SELECT * FROM holiday_plans WHERE start_date IN (CURRENT_DATE + 1, CURRENT_DATE + 7) AND status <> 'CANCELLED' AND id > 0 ORDER BY id LIMIT 500"),
+                arguments("destination prefix", "holiday_plans",
+                        "SELECT * FROM holiday_plans WHERE destination LIKE 'Rom%'"),
+                arguments("calendar event", "holiday_plans",
+                        "SELECT * FROM holiday_plans WHERE google_calendar_event_id = 'abc'"),
+                
+                // Background jobs
+                arguments("outbox claim", "email_outbox",
+                        "SELECT id FROM email_outbox WHERE (status = 'PENDING' AND next_attempt_at <= now()) OR (status = 'SENDING' AND lease_expires_at <= now() AND attempts + 1 < 6) ORDER BY next_attempt_at, id LIMIT 50 FOR UPDATE SKIP LOCKED"),
+                arguments("outbox failed purge", "email_outbox",
+                        "DELETE FROM email_outbox WHERE status = 'FAILED' AND next_attempt_at < now() - interval '7 days'"),
+                arguments("llm cache purge", "llm_response_cache",
+                        "DELETE FROM llm_response_cache WHERE expires_at <= now()"),
+                arguments("expired job leases", "optimization_jobs",
+                        "SELECT id FROM optimization_jobs WHERE status IN ('QUEUED', 'RUNNING') AND (lease_expires_at IS NULL OR lease_expires_at < now()) ORDER BY id")
+        );
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesAnIndex(String name, String table, String sql) {
+        assertThat(explain(sql)).as(name).doesNotContain("Seq Scan on " + table);
+    }
+    
+    @Test
+    void singleDayWeatherQueryReadsOnePartition() {
+        String plan = explain("SELECT * FROM weather_data WHERE city = 'Rome' AND country = 'IT' AND date = CURRENT_DATE AND forecast_type = 'HOURLY'");
+        
+        Matcher partitions = WEATHER_PARTITION.matcher(plan);
+        assertThat(partitions.results().map(result -> result.group(1)).distinct()).as(plan).hasSize(1);
+    }
+    
+    private static String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.holidayplanner.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway migrations the way the application configures them, against an empty database and against
+ * a database that the old ddl-auto setup created.
+ */
+class SchemaMigrationTest {
+    
+    private EmbeddedPostgres postgres;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+    
+    @AfterEach
+    void stopDatabase() throws IOException {
+        postgres.close();
+    }
+    
+    @Test
+    void migratesEmptyDatabase() {
+        MigrateResult result = migrate();
+        
+        assertThat(result.success).isTrue();
+        assertThat(result.initialSchemaVersion).isNull();
+        assertThat(partitionCount()).isGreaterThan(1);
+    }
+    
+    @Test
+    void upgradesDatabaseCreatedByDdlAuto() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/ddl-auto-schema.sql"));
+        }
+        
+        MigrateResult result = migrate();
+        
+        assertThat(result.success).isTrue();
+        assertThat(result.initialSchemaVersion).isEqualTo("0");
+        assertThat(partitionCount()).isGreaterThan(1);
+        
+        // Existing rows survive the partitioning of weather_data, in the partition for their day or the default one
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM weather_data ORDER BY id", String.class))
+                .hasSize(2)
+                .last().isEqualTo("weather_data_default");
+        
+        // The generated foreign key name is replaced by the cascading one
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT conname || ':' || confdeltype::text FROM pg_constraint WHERE conrelid = 'activities'::regclass AND contype = 'f'",
+                String.class))
+                .containsExactly("fk_activities_holiday_plan:c");
+        
+        // The enum CHECK ddl-auto generated for the outbox status is replaced by one that allows SENDING
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = 'email_outbox'::regclass AND contype = 'c'",
+                String.class))
+                .containsExactly("ck_email_outbox_status");
+        
+        // Sequences start past the ids IDENTITY handed out
+        assertThat(jdbcTemplate.queryForObject("SELECT nextval('activities_seq')", Long.class)).isGreaterThan(120L);
+    }
+    
+    private MigrateResult migrate() {
+        Properties flyway = applicationProperties();
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations(flyway.getProperty("spring.flyway.locations"))
+                .baselineOnMigrate(Boolean.parseBoolean(flyway.getProperty("spring.flyway.baseline-on-migrate")))
+                .baselineVersion(flyway.getProperty("spring.flyway.baseline-version"))
+                .load()
+                .migrate();
+    }
+    
+    private Integer partitionCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_inherits WHERE inhparent = 'weather_data'::regclass", Integer.class);
+    }
+    
+    private static Properties applicationProperties() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        return yaml.getObject();
+    }
+}
\ No newline at end of file
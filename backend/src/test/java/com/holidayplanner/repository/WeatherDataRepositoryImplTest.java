@@ -0,0 +1,169 @@
+package com.holidayplanner.repository;
+
+import com.holidayplanner.model.WeatherData;
+import com.holidayplanner.model.WeatherData.ForecastType;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherDataRepositoryImplTest {
+    
+    private static final LocalDate DAY = LocalDate.now().minusDays(5);
+    
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+    private static WeatherDataRepositoryImpl repository;
+    
+    @BeforeAll
+    static void migrate() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        repository = new WeatherDataRepositoryImpl(jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "batchSize", 50);
+    }
+    
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+    
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("DELETE FROM weather_data");
+    }
+    
+    @Test
+    void compactsHourlyRowsIntoOneDailyRow() {
+        insertHourly(9, 20.0, 1.0);
+        insertHourly(12, 26.0, 2.0);
+        
+        assertThat(repository.compactDay(DAY, ForecastType.HOURLY, ForecastType.DAILY)).isEqualTo(2);
+        
+        Map<String, Object> daily = aggregate(ForecastType.DAILY);
+        assertThat(daily.get("sample_count")).isEqualTo(2);
+        assertThat(daily.get("temperature_celsius")).isEqualTo(23.0);
+        assertThat(daily.get("temperature_min")).isEqualTo(20.0);
+        assertThat(daily.get("temperature_max")).isEqualTo(26.0);
+        assertThat(daily.get("rain_total_mm")).isEqualTo(3.0);
+    }
+    
+    @Test
+    void foldsLaterRowsIntoTheExistingAggregate() {
+        insertHourly(9, 20.0, 1.0);
+        insertHourly(12, 26.0, 2.0);
+        repository.compactDay(DAY, ForecastType.HOURLY, ForecastType.DAILY);
+        
+        insertHourly(15, 29.0, 4.0);
+        assertThat(repository.compactDay(DAY, ForecastType.HOURLY, ForecastType.DAILY)).isEqualTo(1);
+        
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM weather_data", Integer.class)).isEqualTo(1);
+        Map<String, Object> daily = aggregate(ForecastType.DAILY);
+        assertThat(daily.get("sample_count")).isEqualTo(3);
+        assertThat(daily.get("temperature_celsius")).isEqualTo(25.0);
+        assertThat(daily.get("temperature_max")).isEqualTo(29.0);
+        assertThat(daily.get("rain_total_mm")).isEqualTo(7.0);
+    }
+    
+    @Test
+    void sumsLastHourRainOfCurrentObservations() {
+        jdbcTemplate.update("""
+                INSERT INTO weather_data (id, city, country, date, forecast_hour, forecast_type,
+                    temperature_celsius, rain_1h_mm, snow_1h_mm, created_date)
+                VALUES (nextval('weather_data_seq'), 'Rome', 'IT', ?, 10, 'CURRENT', 18.0, 0.5, 0.0, now()),
+                       (nextval('weather_data_seq'), 'Rome', 'IT', ?, 11, 'CURRENT', 19.0, 1.5, 0.0, now())
+                """, DAY, DAY);
+        
+        assertThat(repository.compactDay(DAY, ForecastType.CURRENT, ForecastType.HISTORICAL)).isEqualTo(2);
+        
+        Map<String, Object> historical = aggregate(ForecastType.HISTORICAL);
+        assertThat(historical.get("rain_total_mm")).isEqualTo(2.0);
+        assertThat(historical.get("snow_total_mm")).isEqualTo(0.0);
+    }
+    
+    @Test
+    void upsertTakesOneSequenceValuePerFiftyRows() {
+        List<WeatherData> forecasts = new ArrayList<>();
+        for (String city : List.of("Rome", "Milan", "Naples")) {
+            for (int hour = 0; hour < 20; hour++) {
+                forecasts.add(hourly(city, hour, 20.0 + hour));
+            }
+        }
+        
+        long sequenceBefore = jdbcTemplate.queryForObject("SELECT last_value FROM weather_data_seq", Long.class);
+        assertThat(repository.upsertAll(forecasts)).isEqualTo(60);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM weather_data ORDER BY id", Long.class);
+        
+        // Updating every row again keeps their ids and still only costs one value per 50 rows
+        forecasts.forEach(forecast -> forecast.setTemperatureCelsius(forecast.getTemperatureCelsius() + 1));
+        assertThat(repository.upsertAll(forecasts)).isEqualTo(60);
+        
+        assertThat(ids).hasSize(60).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM weather_data ORDER BY id", Long.class)).isEqualTo(ids);
+        assertThat(jdbcTemplate.queryForObject("SELECT max(temperature_celsius) FROM weather_data", Double.class)).isEqualTo(40.0);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_value FROM weather_data_seq", Long.class))
+                .isEqualTo(sequenceBefore + 4 * 50);
+    }
+    
+    @Test
+    void compactionTakesOneSequenceValuePerFiftyAggregates() {
+        List<WeatherData> forecasts = new ArrayList<>();
+        for (int city = 0; city < 60; city++) {
+            forecasts.add(hourly("City " + city, 9, 20.0));
+            forecasts.add(hourly("City " + city, 12, 26.0));
+        }
+        repository.upsertAll(forecasts);
+        
+        long sequenceBefore = jdbcTemplate.queryForObject("SELECT last_value FROM weather_data_seq", Long.class);
+        assertThat(repository.compactDay(DAY, ForecastType.HOURLY, ForecastType.DAILY)).isEqualTo(120);
+        
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM weather_data", Long.class)).hasSize(60).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM weather_data WHERE temperature_celsius = 23.0",
+                Integer.class)).isEqualTo(60);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_value FROM weather_data_seq", Long.class))
+                .isEqualTo(sequenceBefore + 2 * 50);
+    }
+    
+    private static WeatherData hourly(String city, int hour, double temperature) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setCity(city);
+        weatherData.setCountry("IT");
+        weatherData.setDate(DAY);
+        weatherData.setForecastHour(hour);
+        weatherData.setForecastType(ForecastType.HOURLY);
+        weatherData.setTemperatureCelsius(temperature);
+        return weatherData;
+    }
+    
+    private void insertHourly(int hour, double temperature, double rain) {
+        jdbcTemplate.update("""
+                INSERT INTO weather_data (id, city, country, date, forecast_hour, forecast_type,
+                    temperature_celsius, rain_3h_mm, created_date)
+                VALUES (nextval('weather_data_seq'), 'Rome', 'IT', ?, ?, 'HOURLY', ?, ?, now())
+                """, DAY, hour, temperature, rain);
+    }
+    
+    private Map<String, Object> aggregate(ForecastType type) {
+        return jdbcTemplate.queryForMap(
+                "SELECT * FROM weather_data WHERE date = ? AND forecast_type = ? AND forecast_hour IS NULL",
+                DAY, type.name());
+    }
+}
\ No newline at end of file
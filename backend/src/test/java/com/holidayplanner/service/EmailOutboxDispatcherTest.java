@@ -0,0 +1,211 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.EmailOutboxMessage;
+import com.holidayplanner.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the outbox dispatcher against migrated PostgreSQL and a GreenMail SMTP server.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxDispatcherTest {
+    
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+    
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private LockCheckingMailSender mailSender;
+    
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("DELETE FROM email_outbox");
+        mailSender.observedSends.clear();
+    }
+    
+    @Test
+    void sendsClaimedBatchWithoutHoldingTransactionOrRowLocks() {
+        queue("first@example.com", "PENDING", null, null);
+        queue("second@example.com", "PENDING", null, null);
+        
+        dispatcher.dispatchPendingMessages();
+        
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        // During the SMTP conversation the rows were SENDING, lockable by anyone and no transaction was open
+        assertThat(mailSender.observedSends).containsExactly(new ObservedSend(false, List.of("SENDING", "SENDING")));
+        assertThat(rows()).allSatisfy(row -> {
+            assertThat(row.get("status")).isEqualTo("SENT");
+            assertThat(row.get("attempts")).isEqualTo(1);
+            assertThat(row.get("sent_at")).isNotNull();
+            assertThat(row.get("claim_token")).isNull();
+        });
+    }
+    
+    @Test
+    void releasesBatchForRetryWhenSmtpServerIsDown() {
+        queue("first@example.com", "PENDING", null, null);
+        greenMail.stop();
+        
+        dispatcher.dispatchPendingMessages();
+        
+        assertThat(rows()).singleElement().satisfies(row -> {
+            assertThat(row.get("status")).isEqualTo("PENDING");
+            assertThat(row.get("attempts")).isEqualTo(1);
+            assertThat(row.get("last_error")).isNotNull();
+            assertThat(row.get("claim_token")).isNull();
+            assertThat(((Timestamp) row.get("next_attempt_at")).toLocalDateTime()).isAfter(LocalDateTime.now());
+        });
+    }
+    
+    @Test
+    void reclaimsBatchWhoseLeaseExpired() {
+        queue("first@example.com", "SENDING", "crashed-dispatcher", LocalDateTime.now().minusMinutes(1));
+        
+        dispatcher.dispatchPendingMessages();
+        
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        // The lapsed claim counts as an attempt next to the one that delivered the message
+        assertThat(rows()).singleElement().satisfies(row -> {
+            assertThat(row.get("status")).isEqualTo("SENT");
+            assertThat(row.get("attempts")).isEqualTo(2);
+        });
+    }
+    
+    @Test
+    void givesUpOnLapsedClaimOfLastAllowedAttempt() {
+        queue("first@example.com", "SENDING", "crashed-dispatcher", LocalDateTime.now().minusMinutes(1), 5);
+        
+        dispatcher.dispatchPendingMessages();
+        
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(rows()).singleElement().satisfies(row -> {
+            assertThat(row.get("status")).isEqualTo("FAILED");
+            assertThat(row.get("attempts")).isEqualTo(6);
+            assertThat(row.get("last_error")).isNotNull();
+            assertThat(row.get("claim_token")).isNull();
+        });
+    }
+    
+    @Test
+    void purgesFailedMessagesAfterRetention() {
+        queue("old@example.com", "FAILED", null, null);
+        queue("recent@example.com", "FAILED", null, null);
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = now() - interval '8 days' WHERE recipient = 'old@example.com'");
+        
+        dispatcher.purgeFinishedMessages();
+        
+        assertThat(rows()).singleElement().satisfies(row -> assertThat(row.get("recipient")).isEqualTo("recent@example.com"));
+    }
+    
+    @Test
+    void leavesBatchClaimedByAnotherDispatcher() {
+        queue("first@example.com", "SENDING", "other-dispatcher", LocalDateTime.now().plusMinutes(5));
+        
+        dispatcher.dispatchPendingMessages();
+        
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(rows()).singleElement().satisfies(row -> {
+            assertThat(row.get("status")).isEqualTo("SENDING");
+            assertThat(row.get("claim_token")).isEqualTo("other-dispatcher");
+        });
+    }
+    
+    private void queue(String recipient, String status, String claimToken, LocalDateTime leaseExpiresAt) {
+        queue(recipient, status, claimToken, leaseExpiresAt, 0);
+    }
+    
+    private void queue(String recipient, String status, String claimToken, LocalDateTime leaseExpiresAt, int attempts) {
+        jdbcTemplate.update("""
+                INSERT INTO email_outbox (id, message_type, recipient, subject, html_body, status, attempts,
+                    next_attempt_at, claim_token, lease_expires_at, created_date)
+                VALUES (nextval('email_outbox_seq'), 'test-email', ?, 'Your trip', '<p>Hello</p>', ?, ?,
+                    now() - interval '1 minute', ?, ?, now())
+                """, recipient, status, attempts, claimToken, leaseExpiresAt);
+    }
+    
+    private List<Map<String, Object>> rows() {
+        return jdbcTemplate.queryForList("SELECT * FROM email_outbox ORDER BY id");
+    }
+    
+    record ObservedSend(boolean inTransaction, List<String> statuses) {
+    }
+    
+    // Looks at the outbox from another connection while the SMTP conversation is about to start.
+    // FOR UPDATE NOWAIT fails if the dispatcher still holds the row locks of its claim.
+    static class LockCheckingMailSender extends JavaMailSenderImpl {
+        
+        private final JdbcTemplate jdbcTemplate;
+        private final List<ObservedSend> observedSends = new CopyOnWriteArrayList<>();
+        
+        LockCheckingMailSender(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+            setHost(ServerSetupTest.SMTP.getBindAddress());
+            setPort(ServerSetupTest.SMTP.getPort());
+        }
+        
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            observedSends.add(new ObservedSend(TransactionSynchronizationManager.isActualTransactionActive(),
+                    jdbcTemplate.queryForList("SELECT status FROM email_outbox ORDER BY id FOR UPDATE NOWAIT", String.class)));
+            super.doSend(mimeMessages, originalMessages);
+        }
+    }
+    
+    @Configuration
+    @EntityScan(basePackageClasses = EmailOutboxMessage.class)
+    @EnableJpaRepositories(basePackageClasses = EmailOutboxRepository.class)
+    @Import(EmailOutboxDispatcher.class)
+    static class Config {
+        
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+        
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+        
+        @Bean
+        LockCheckingMailSender mailSender(JdbcTemplate jdbcTemplate) {
+            return new LockCheckingMailSender(jdbcTemplate);
+        }
+    }
+}
\ No newline at end of file
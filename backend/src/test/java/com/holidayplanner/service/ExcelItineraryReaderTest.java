@@ -0,0 +1,53 @@
+package com.holidayplanner.service;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExcelItineraryReaderTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+    
+    private final ExcelItineraryReader reader = new ExcelItineraryReader();
+    
+    @TempDir
+    File tempDir;
+    
+    @ParameterizedTest(name = "1904 date system: {0}")
+    @ValueSource(booleans = {false, true})
+    void readsDatesInTheWorkbooksDateSystem(boolean date1904) throws IOException {
+        File workbookFile = new File(tempDir, "itinerary.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream output = new FileOutputStream(workbookFile)) {
+            workbook.getCTWorkbook().getWorkbookPr().setDate1904(date1904);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            
+            XSSFSheet sheet = workbook.createSheet();
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue("Colosseum");
+            // Stored as the serial number of the workbook's date system
+            row.createCell(1).setCellValue(DAY);
+            row.getCell(1).setCellStyle(dateStyle);
+            workbook.write(output);
+        }
+        
+        List<List<String>> rows = new ArrayList<>();
+        reader.read(workbookFile, (rowIndex, cells) -> rows.add(cells));
+        
+        assertThat(rows).containsExactly(List.of("Colosseum", DAY.toString()));
+    }
+}
\ No newline at end of file
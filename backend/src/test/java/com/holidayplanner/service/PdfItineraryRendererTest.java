@@ -0,0 +1,78 @@
+package com.holidayplanner.service;
+
+import com.holidayplanner.model.Activity;
+import com.holidayplanner.model.HolidayPlan;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfItineraryRendererTest {
+    
+    private static final Pattern HEADER_ROW = Pattern.compile("Time\\s+Activity\\s+Location\\s+Type\\s+Notes");
+    private static final Pattern ACTIVITY_ROW = Pattern.compile("Stop \\d+");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 6, 1);
+    
+    private final PdfItineraryRenderer renderer = new PdfItineraryRenderer();
+    
+    PdfItineraryRendererTest() throws IOException {
+    }
+    
+    @Test
+    void repeatsDayHeaderOnlyAtPageBreaksWhenBusyDaysAreFlushed() throws IOException {
+        // 30 + 130 rows: the second day crosses the flush interval from its own first row, not from the plan's
+        List<Activity> activities = new ArrayList<>();
+        activities.addAll(day(FIRST_DAY, 30));
+        activities.addAll(day(FIRST_DAY.plusDays(1), 130));
+        
+        PdfReader reader = new PdfReader(render(activities));
+        PdfTextExtractor extractor = new PdfTextExtractor(reader);
+        List<Long> headersPerPage = new ArrayList<>();
+        int rows = 0;
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            String text = extractor.getTextFromPage(page);
+            headersPerPage.add(HEADER_ROW.matcher(text).results().count());
+            rows += (int) ACTIVITY_ROW.matcher(text).results().count();
+        }
+        
+        // Both days start on the first page; every later page repeats the header once, flushes add none
+        List<Long> expected = new ArrayList<>(List.of(2L));
+        expected.addAll(Collections.nCopies(reader.getNumberOfPages() - 1, 1L));
+        assertThat(headersPerPage).isEqualTo(expected);
+        assertThat(rows).isEqualTo(160);
+    }
+    
+    private byte[] render(List<Activity> activities) throws IOException {
+        HolidayPlan plan = new HolidayPlan();
+        plan.setId(1L);
+        plan.setTitle("Rome");
+        plan.setDestination("Rome");
+        
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        renderer.render(plan, activities.iterator(), output);
+        return output.toByteArray();
+    }
+    
+    private static List<Activity> day(LocalDate date, int count) {
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Activity activity = new Activity();
+            activity.setName("Stop " + i);
+            activity.setDate(date);
+            activity.setStartTime(LocalTime.of(8, 0).plusMinutes(i));
+            activity.setType(Activity.ActivityType.MUSEUM);
+            activities.add(activity);
+        }
+        return activities;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+-- Schema as ddl-auto=update left it on databases that predate the Flyway migrations: generated foreign key
+-- and unique constraint names, enum CHECK constraints, and IDENTITY ids on the tables that later moved to
+-- pooled sequences.
+
+create sequence activities_seq start with 1 increment by 50;
+create sequence weather_data_seq start with 1 increment by 50;
+create sequence email_outbox_seq start with 1 increment by 50;
+
+create table holiday_plans (
+    id bigint generated by default as identity,
+    title varchar(255) not null,
+    destination varchar(255) not null,
+    start_date date not null,
+    end_date date not null,
+    user_email varchar(255) not null,
+    status varchar(255) not null check (status in ('DRAFT','CONFIRMED','IN_PROGRESS','COMPLETED','CANCELLED')),
+    notes TEXT,
+    weather_optimization_enabled boolean,
+    last_weather_update timestamp(6),
+    google_calendar_event_id varchar(255),
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    primary key (id)
+);
+
+create table activities (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    description TEXT,
+    date date not null,
+    start_time time(6),
+    end_time time(6),
+    type varchar(255) not null,
+    time_slot varchar(255) not null,
+    location varchar(255) not null,
+    is_weather_dependent boolean,
+    preferred_weather varchar(255),
+    min_temperature float(53),
+    max_temperature float(53),
+    max_humidity float(53),
+    avoid_rain boolean,
+    priority_level integer,
+    estimated_duration_minutes integer,
+    cost_estimate float(53),
+    booking_required boolean,
+    booking_url varchar(255),
+    contact_info varchar(255),
+    notes TEXT,
+    ai_optimized boolean,
+    optimization_reason varchar(255),
+    holiday_plan_id bigint not null,
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    primary key (id)
+);
+
+create table weather_data (
+    id bigint generated by default as identity,
+    city varchar(255) not null,
+    country varchar(255) not null,
+    date date not null,
+    forecast_hour integer,
+    temperature_celsius float(53),
+    feels_like_celsius float(53),
+    temperature_min float(53),
+    temperature_max float(53),
+    humidity_percent integer,
+    pressure_hpa float(53),
+    wind_speed_mps float(53),
+    wind_direction_degrees integer,
+    cloudiness_percent integer,
+    visibility_meters integer,
+    uv_index float(53),
+    weather_main varchar(255),
+    weather_description varchar(255),
+    weather_icon varchar(255),
+    rain_1h_mm float(53),
+    rain_3h_mm float(53),
+    snow_1h_mm float(53),
+    snow_3h_mm float(53),
+    sunrise_time timestamp(6),
+    sunset_time timestamp(6),
+    air_quality_index integer,
+    forecast_type varchar(255) check (forecast_type in ('CURRENT','HOURLY','DAILY','HISTORICAL')),
+    data_source varchar(255),
+    ai_comfort_score float(53),
+    outdoor_activity_score float(53),
+    indoor_activity_score float(53),
+    created_date timestamp(6) not null,
+    primary key (id)
+);
+
+create table llm_response_cache (
+    prompt_hash varchar(64) not null,
+    model varchar(255) not null,
+    temperature float(53) not null,
+    response TEXT not null,
+    expires_at timestamp(6) not null,
+    created_date timestamp(6) not null,
+    primary key (prompt_hash)
+);
+
+create table optimization_jobs (
+    id bigint generated by default as identity,
+    holiday_plan_id bigint not null,
+    status varchar(255) not null check (status in ('QUEUED','RUNNING','COMPLETED','FAILED')),
+    stage varchar(255),
+    total_days integer,
+    completed_days integer,
+    optimized_activities integer,
+    error_message TEXT,
+    attempts integer,
+    started_at timestamp(6),
+    completed_at timestamp(6),
+    created_date timestamp(6) not null,
+    last_modified_date timestamp(6),
+    primary key (id)
+);
+
+create table email_outbox (
+    id bigint not null,
+    message_type varchar(255) not null,
+    deduplication_key varchar(255) unique,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    html_body TEXT not null,
+    status varchar(255) not null check (status in ('PENDING','SENT','FAILED')),
+    attempts integer not null,
+    next_attempt_at timestamp(6) not null,
+    last_error TEXT,
+    sent_at timestamp(6),
+    created_date timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_holiday_plans_user_start_id on holiday_plans (user_email, start_date, id);
+create index idx_holiday_plans_destination_start_id on holiday_plans (destination, start_date, id);
+create index idx_optimization_jobs_plan_status on optimization_jobs (holiday_plan_id, status);
+
+alter table if exists weather_data
+    add constraint uk_weather_data_forecast_slot unique (city, country, date, forecast_hour, forecast_type);
+
+alter table if exists activities
+    add constraint FKbq6ubwqxrf7c54m7nn7oxn9ci foreign key (holiday_plan_id) references holiday_plans;
+
+-- Rows written before the upgrade, including ids handed out by IDENTITY
+insert into holiday_plans (id, title, destination, start_date, end_date, user_email, status, created_date)
+values (1, 'Rome', 'Rome, IT', current_date, current_date + 3, 'user@example.com', 'CONFIRMED', now());
+
+insert into activities (id, name, date, start_time, end_time, type, time_slot, location, holiday_plan_id, created_date)
+values (120, 'Colosseum', current_date, '09:00', '11:00', 'SIGHTSEEING', 'MORNING', 'Rome', 1, now());
+
+insert into weather_data (id, city, country, date, forecast_hour, forecast_type, created_date)
+values (7, 'Rome', 'IT', current_date, 12, 'HOURLY', now()),
+       (8, 'Rome', 'IT', current_date - 30, null, 'DAILY', now());
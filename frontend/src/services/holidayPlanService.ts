@@ -1,14 +1,20 @@
 import apiClient from './apiClient';
 import {
   HolidayPlan,
+  HolidayPlanSummary,
   Activity,
+  ActivitySummary,
+  ActivityConflict,
   CreateHolidayPlanForm,
   ExcelUploadForm,
+  ExcelImportResult,
   PlanStatus,
   FilterOptions,
   PaginationOptions,
   PagedResponse,
   OptimizationResult,
+  OptimizationJob,
+  OptimizationProgressEvent,
   HolidayPlanStatistics,
   ExportResult,
   ShareResult,
@@ -21,7 +27,7 @@ class HolidayPlanService {
   async getAllPlans(
     filters: FilterOptions = {},
     pagination: PaginationOptions = { page: 0, size: 20 }
-  ): Promise<PagedResponse<HolidayPlan>> {
+  ): Promise<PagedResponse<HolidayPlanSummary>> {
     const params = {
       ...filters,
       page: pagination.page,
@@ -49,7 +55,7 @@ class HolidayPlanService {
   }
 
   // Excel integration
-  async uploadExcelFile(uploadData: ExcelUploadForm): Promise<HolidayPlan> {
+  async uploadExcelFile(uploadData: ExcelUploadForm): Promise<ExcelImportResult> {
     return apiClient.uploadFile(
       `${this.basePath}/upload`,
       uploadData.file,
@@ -64,21 +70,45 @@ class HolidayPlanService {
     return apiClient.post(`${this.basePath}/${id}/export`, { format });
   }
 
+  async downloadPlanExcel(id: number, filename?: string): Promise<void> {
+    return apiClient.downloadFile(`${this.basePath}/${id}/export/excel`, filename);
+  }
+
+  async downloadPlanPdf(id: number, filename?: string): Promise<void> {
+    return apiClient.downloadFile(`${this.basePath}/${id}/export/pdf`, filename);
+  }
+
   // Activity management
-  async getPlanActivities(planId: number): Promise<Activity[]> {
+  async getPlanActivities(planId: number): Promise<ActivitySummary[]> {
     return apiClient.get(`${this.basePath}/${planId}/activities`);
   }
 
-  async getActivitiesForDate(planId: number, date: string): Promise<Activity[]> {
+  async getActivitiesForDate(planId: number, date: string): Promise<ActivitySummary[]> {
     return apiClient.get(`${this.basePath}/${planId}/activities/date/${date}`);
   }
 
-  async addActivity(planId: number, activityData: any): Promise<Activity> {
-    return apiClient.post(`${this.basePath}/${planId}/activities`, activityData);
+  // Overlapping activities are rejected with 409 and the conflicting activities unless allowConflicts is set
+  async addActivity(planId: number, activityData: any, allowConflicts = false): Promise<Activity> {
+    return apiClient.post(`${this.basePath}/${planId}/activities?allowConflicts=${allowConflicts}`, activityData);
   }
 
-  async updateActivity(planId: number, activityId: number, activityData: any): Promise<Activity> {
-    return apiClient.put(`${this.basePath}/${planId}/activities/${activityId}`, activityData);
+  async updateActivity(planId: number, activityId: number, activityData: any, allowConflicts = false): Promise<Activity> {
+    return apiClient.put(`${this.basePath}/${planId}/activities/${activityId}?allowConflicts=${allowConflicts}`, activityData);
+  }
+
+  async getActivityConflicts(
+    planId: number,
+    date: string,
+    startTime: string,
+    endTime: string,
+    excludeActivityId?: number
+  ): Promise<ActivityConflict[]> {
+    return apiClient.get(`${this.basePath}/${planId}/activities/conflicts`, {
+      date,
+      startTime,
+      endTime,
+      excludeActivityId,
+    });
   }
 
   async deleteActivity(planId: number, activityId: number): Promise<void> {
@@ -90,6 +120,28 @@ class HolidayPlanService {
     return apiClient.post(`${this.basePath}/${planId}/optimize`);
   }
 
+  async getOptimizationJob(jobId: number): Promise<OptimizationJob> {
+    return apiClient.get(`${this.basePath}/optimization/jobs/${jobId}`);
+  }
+
+  subscribeToOptimizationJob(
+    jobId: number,
+    onProgress: (event: OptimizationProgressEvent) => void,
+    onResult: (job: OptimizationJob) => void
+  ): EventSource {
+    const eventSource = apiClient.createEventSource(`${this.basePath}/optimization/jobs/${jobId}/events`);
+
+    eventSource.addEventListener('progress', (event) => {
+      onProgress(JSON.parse((event as MessageEvent).data));
+    });
+    eventSource.addEventListener('result', (event) => {
+      onResult(JSON.parse((event as MessageEvent).data));
+      eventSource.close();
+    });
+
+    return eventSource;
+  }
+
   // Statistics and analytics
   async getPlanStatistics(planId: number): Promise<HolidayPlanStatistics> {
     return apiClient.get(`${this.basePath}/${planId}/statistics`);
@@ -103,6 +155,13 @@ class HolidayPlanService {
     });
   }
 
+  async clonePlanForUsers(planId: number, userEmails: string[], newTitle?: string): Promise<HolidayPlanSummary[]> {
+    return apiClient.post(`${this.basePath}/${planId}/clone-many`, {
+      userEmails,
+      newTitle,
+    });
+  }
+
   async sharePlan(planId: number, recipientEmail: string, message?: string): Promise<ShareResult> {
     return apiClient.post(`${this.basePath}/${planId}/share`, {
       recipientEmail,
@@ -115,7 +174,7 @@ class HolidayPlanService {
   }
 
   // User-specific queries
-  async getUpcomingHolidays(userEmail: string, days: number = 30): Promise<HolidayPlan[]> {
+  async getUpcomingHolidays(userEmail: string, days: number = 30): Promise<HolidayPlanSummary[]> {
     return apiClient.get(`${this.basePath}/user/${userEmail}/upcoming`, { days });
   }
 
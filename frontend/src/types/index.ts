@@ -16,6 +16,20 @@ export interface HolidayPlan {
   lastModifiedDate: string;
 }
 
+// List views return a narrow projection without notes or activities
+export type HolidayPlanSummary = Pick<
+  HolidayPlan,
+  | 'id'
+  | 'title'
+  | 'destination'
+  | 'startDate'
+  | 'endDate'
+  | 'userEmail'
+  | 'status'
+  | 'weatherOptimizationEnabled'
+  | 'lastModifiedDate'
+>;
+
 export enum PlanStatus {
   DRAFT = 'DRAFT',
   CONFIRMED = 'CONFIRMED',
@@ -54,6 +68,34 @@ export interface Activity {
   lastModifiedDate: string;
 }
 
+// An activity overlapping the requested time span; returned by the conflicts endpoint and in 409 responses
+export interface ActivityConflict {
+  activityId: number;
+  name: string;
+  startTime: string;
+  endTime: string;
+}
+
+// List views return a narrow projection without descriptions, notes or booking details
+export type ActivitySummary = Pick<
+  Activity,
+  | 'id'
+  | 'name'
+  | 'date'
+  | 'startTime'
+  | 'endTime'
+  | 'type'
+  | 'timeSlot'
+  | 'location'
+  | 'weatherDependent'
+  | 'priorityLevel'
+  | 'estimatedDurationMinutes'
+  | 'costEstimate'
+  | 'bookingRequired'
+  | 'aiOptimized'
+  | 'optimizationReason'
+>;
+
 export enum ActivityType {
   SIGHTSEEING = 'SIGHTSEEING',
   MUSEUM = 'MUSEUM',
@@ -110,6 +152,9 @@ export interface WeatherData {
   rain3hMm?: number;
   snow1hMm?: number;
   snow3hMm?: number;
+  rainTotalMm?: number;
+  snowTotalMm?: number;
+  sampleCount?: number;
   sunriseTime?: string;
   sunsetTime?: string;
   airQualityIndex?: number;
@@ -167,10 +212,37 @@ export interface PagedResponse<T> {
 
 export interface OptimizationResult {
   message: string;
-  optimizedActivities: number;
+  jobId: number;
+  status: OptimizationJobStatus;
   planId: number;
 }
 
+export type OptimizationJobStatus = 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED';
+
+export interface OptimizationJob {
+  id: number;
+  holidayPlanId: number;
+  status: OptimizationJobStatus;
+  stage?: string;
+  totalDays?: number;
+  completedDays?: number;
+  optimizedActivities?: number;
+  errorMessage?: string;
+  attempts: number;
+  startedAt?: string;
+  completedAt?: string;
+  createdDate: string;
+  finished: boolean;
+}
+
+export interface OptimizationProgressEvent {
+  jobId: number;
+  stage: 'weather' | 'ai';
+  date: string;
+  completedDays: number;
+  totalDays: number;
+}
+
 export interface HolidayPlanStatistics {
   totalActivities: number;
   totalDays: number;
@@ -235,6 +307,19 @@ export interface ExcelUploadForm {
   destination: string;
 }
 
+export interface ExcelImportRowError {
+  row: number;
+  message: string;
+  skipped: boolean;
+}
+
+export interface ExcelImportResult {
+  plan: HolidayPlanSummary;
+  importedActivities: number;
+  skippedRows: number;
+  rowErrors: ExcelImportRowError[];
+}
+
 // UI Component Types
 export interface FilterOptions {
   userEmail?: string;